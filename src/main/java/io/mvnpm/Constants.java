@@ -5,6 +5,10 @@ public interface Constants {
     String HEADER_CACHE_CONTROL = "Cache-Control";
     String HEADER_CACHE_CONTROL_IMMUTABLE = "public, max-age=315360000, immutable";
     String HEADER_CACHE_CONTROL_1DAY = "public, max-age=86400";
+    String HEADER_RANGE = "Range";
+    String HEADER_IF_RANGE = "If-Range";
+    String HEADER_ACCEPT_RANGES = "Accept-Ranges";
+    String HEADER_CONTENT_RANGE = "Content-Range";
 
     String OR = "||";
     String OR_ESCAPED = "\\|\\|";
@@ -45,6 +49,12 @@ public interface Constants {
     String MD5 = "md5";
     String DOT_MD5 = DOT + MD5;
 
+    String SHA256 = "sha256";
+    String DOT_SHA256 = DOT + SHA256;
+
+    String SHA512 = "sha512";
+    String DOT_SHA512 = DOT + SHA512;
+
     String POM = "pom";
     String DOT_POM = DOT + POM;
     String ASC = "asc";
@@ -24,10 +24,10 @@ import jakarta.ws.rs.PathParam;
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
-import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.jboss.resteasy.reactive.ResponseHeader;
 
 import io.mvnpm.creator.FileType;
+import io.mvnpm.creator.utils.CompressionPool;
 import io.mvnpm.maven.MavenCentralService;
 import io.mvnpm.maven.MavenRepositoryService;
 import io.mvnpm.maven.NameVersion;
@@ -179,7 +179,7 @@ public class JarContentsApi {
         assetMap.put("/", rootAsset);
 
         try (FileInputStream fin = new FileInputStream(path.toFile());
-                GzipCompressorInputStream gzIn = new GzipCompressorInputStream(fin);
+                InputStream gzIn = CompressionPool.shared().gzipInput(fin);
                 TarArchiveInputStream tarIn = new TarArchiveInputStream(gzIn)) {
 
             ArchiveEntry entry;
@@ -2,12 +2,22 @@ package io.mvnpm.creator;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.MeterRegistry;
 import io.mvnpm.creator.events.NewJarEvent;
 import io.mvnpm.creator.exceptions.PackageNotCreatedException;
 import io.mvnpm.creator.type.HashService;
@@ -53,6 +63,15 @@ public class PackageCreator {
     @Inject
     NpmRegistryFacade npmRegistryFacade;
 
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "mvnpm.package-creation.wait-timeout", defaultValue = "5m")
+    Duration creationWaitTimeout;
+
+    // Creations in progress on this pod, so concurrent cold misses for the same file wait instead of rebuilding it
+    private final ConcurrentHashMap<CreationKey, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
     public PackageAlreadySyncedException newPackageAlreadySyncedException(Name name, String version, FileType type,
             Optional<String> dotSigned) {
         return new PackageAlreadySyncedException(packageFileLocator.getLocalFileName(type, name, version, dotSigned), name,
@@ -75,6 +94,16 @@ public class PackageCreator {
         return requireExists("md5", type, name, version, localFilePath);
     }
 
+    public Path getSha256FromCacheOrCreate(FileType type, Name name, String version) {
+        Path localFilePath = packageFileLocator.getLocalSha256FullPath(type, name, version);
+        return requireExists("sha256", type, name, version, localFilePath);
+    }
+
+    public Path getSha512FromCacheOrCreate(FileType type, Name name, String version) {
+        Path localFilePath = packageFileLocator.getLocalSha512FullPath(type, name, version);
+        return requireExists("sha512", type, name, version, localFilePath);
+    }
+
     public Path getAscFromCacheOrCreate(FileType type, Name name, String version) {
         Path localFilePath = packageFileLocator.getLocalAscFullPath(type, name, version);
         return requireExists("asc", type, name, version, localFilePath);
@@ -94,8 +123,59 @@ public class PackageCreator {
             Log.debug("Serving from cache [" + cacheFilePath + "]");
             return cacheFilePath;
         } else {
-            Log.debug("Creating [" + cacheFilePath + "]");
-            return create(type, name, version, cacheFilePath);
+            return createOnce(type, name, version, cacheFilePath);
+        }
+    }
+
+    /**
+     * Only one request creates a given file, others wait (bounded) for its result, or its failure.
+     */
+    private Path createOnce(FileType type, Name name, String version, Path localFilePath) {
+        CreationKey key = new CreationKey(name.npmFullName, version, type);
+        CompletableFuture<Path> creation = new CompletableFuture<>();
+        CompletableFuture<Path> inProgress = inFlight.putIfAbsent(key, creation);
+        if (inProgress != null) {
+            Log.debug("Waiting for creation of [" + localFilePath + "]");
+            meterRegistry.counter("mvnpm.package.creation.coalesced", "type", type.name()).increment();
+            return awaitCreation(key, inProgress);
+        }
+        try {
+            // Another request might have finished creating it between our check and claiming the creation
+            if (Files.exists(localFilePath)) {
+                creation.complete(localFilePath);
+                return localFilePath;
+            }
+            Log.debug("Creating [" + localFilePath + "]");
+            meterRegistry.counter("mvnpm.package.creation", "type", type.name()).increment();
+            Path created = create(type, name, version, localFilePath);
+            creation.complete(created);
+            return created;
+        } catch (Throwable t) {
+            // Also errors, the waiting requests would otherwise only give up at the wait timeout
+            creation.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, creation);
+        }
+    }
+
+    private Path awaitCreation(CreationKey key, CompletableFuture<Path> inProgress) {
+        try {
+            return inProgress.get(creationWaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            meterRegistry.counter("mvnpm.package.creation.wait-timeout", "type", key.type().name()).increment();
+            throw new WebApplicationException("Timed out waiting for " + key + " to be created", 503);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebApplicationException("Interrupted while waiting for " + key + " to be created", 503);
         }
     }
 
@@ -115,9 +195,16 @@ public class PackageCreator {
         Path pomPath = mavenRepositoryService.getPath(p.name(), p.version(), FileType.pom);
         Path tgzPath = mavenRepositoryService.getPath(p.name(), p.version(), FileType.tgz);
         jarService.createAndSaveJar(p, jarPath, pomPath, tgzPath);
-        hashService.createHashes(jarPath);
+        hashService.createSidecars(jarPath);
         bus.send(NewJarEvent.EVENT_NAME,
                 new NewJarEvent(pomPath, jarPath, tgzPath, List.of(), p.name(), p.version()));
 
     }
+
+    private record CreationKey(String npmFullName, String version, FileType type) {
+        @Override
+        public String toString() {
+            return npmFullName + ":" + version + " [" + type + "]";
+        }
+    }
 }
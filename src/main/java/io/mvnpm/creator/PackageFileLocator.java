@@ -113,6 +113,14 @@ public class PackageFileLocator {
         return getLocalFullPath(type, name, version, Optional.of(Constants.DOT_MD5));
     }
 
+    public Path getLocalSha256FullPath(FileType type, Name name, String version) {
+        return getLocalFullPath(type, name, version, Optional.of(Constants.DOT_SHA256));
+    }
+
+    public Path getLocalSha512FullPath(FileType type, Name name, String version) {
+        return getLocalFullPath(type, name, version, Optional.of(Constants.DOT_SHA512));
+    }
+
     public Path getLocalAscFullPath(FileType type, Name name, String version) {
         return getLocalFullPath(type, name, version, Optional.of(Constants.DOT_ASC));
     }
@@ -7,9 +7,10 @@ import java.util.List;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.mvnpm.creator.events.DependencyVersionCheckRequest;
 import io.mvnpm.creator.events.NewJarEvent;
-import io.mvnpm.creator.type.AscService;
 import io.mvnpm.creator.type.HashService;
 import io.mvnpm.creator.type.JavaDocService;
 import io.mvnpm.creator.type.PomService;
@@ -30,9 +31,6 @@ import io.smallrye.common.annotation.Blocking;
 @ApplicationScoped
 public class PackageListener {
 
-    @Inject
-    AscService ascService;
-
     @Inject
     HashService hashService;
 
@@ -51,6 +49,9 @@ public class PackageListener {
     @Inject
     MavenRepositoryService mavenRepositoryService;
 
+    @Inject
+    MeterRegistry meterRegistry;
+
     @Inject
     private CentralSyncItemService centralSyncItemService;
     @Inject
@@ -71,27 +72,24 @@ public class PackageListener {
     /**
      * Ensure all bundle files (source, javadoc, signatures, hashes) exist.
      * All services are idempotent — safe to call even if files already exist.
+     * Files are read at most once for their hashes and signature, and not at all when those were
+     * computed while writing them (like the source jar created with the jar).
      */
     public void createBundleFiles(Path pomFile, Path jarFile, Path tgzFile, List<Path> others) {
-        List<Path> toHash = new ArrayList<>();
-        toHash.add(pomFile);
-        toHash.add(jarFile);
-        toHash.addAll(others);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<Path> files = new ArrayList<>();
+        files.add(pomFile);
+        files.add(jarFile);
+        files.addAll(others);
         if (tgzFile != null) {
-            toHash.add(tgzFile);
-            toHash.add(sourceService.createSource(tgzFile));
-        }
-        toHash.add(javaDocService.createJavadoc(jarFile));
-        List<Path> toSign = new ArrayList<>(toHash);
-        for (Path path : toSign) {
-            final Path asc = ascService.createAsc(path);
-            if (asc != null) {
-                toHash.add(asc);
-            }
+            files.add(tgzFile);
+            files.add(sourceService.createSource(tgzFile));
         }
-        for (Path path : toHash) {
-            hashService.createHashes(path);
+        files.add(javaDocService.createJavadoc(jarFile));
+        for (Path path : files) {
+            hashService.createSidecars(path);
         }
+        sample.stop(meterRegistry.timer("mvnpm.package.bundle-files"));
     }
 
     @ConsumeEvent(DependencyVersionCheckRequest.NAME)
@@ -16,14 +16,17 @@ import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 import java.util.jar.JarOutputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -32,8 +35,7 @@ import jakarta.inject.Inject;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
-import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
-import org.apache.commons.compress.utils.IOUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Developer;
 import org.apache.maven.model.License;
@@ -46,7 +48,10 @@ import io.mvnpm.creator.FileType;
 import io.mvnpm.creator.PackageFileLocator;
 import io.mvnpm.creator.events.NewJarEvent;
 import io.mvnpm.creator.type.PomService;
+import io.mvnpm.creator.utils.CompressionPolicy;
+import io.mvnpm.creator.utils.CompressionPool;
 import io.mvnpm.creator.utils.FileUtil;
+import io.mvnpm.creator.utils.Reproducible;
 import io.mvnpm.importmap.Aggregator;
 import io.mvnpm.importmap.ImportsDataBinding;
 import io.mvnpm.maven.MavenCentralService;
@@ -192,17 +197,18 @@ public class CompositeCreator {
         try (OutputStream jarFile = Files.newOutputStream(tempJar);
                 JarOutputStream mergedJar = new JarOutputStream(jarFile);
                 ByteArrayOutputStream commonTgzBaos = new ByteArrayOutputStream();
-                GZIPOutputStream commonTgzGzos = new GZIPOutputStream(commonTgzBaos);
+                DeflaterOutputStream commonTgzGzos = CompressionPool.shared().gzipOutput(commonTgzBaos);
                 TarArchiveOutputStream commonTgzOut = new TarArchiveOutputStream(commonTgzGzos)) {
 
             commonTgzOut.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
             // Collect all importmaps to merge at the end
-            Map<String, String> importmaps = new HashMap<>();
+            Map<String, String> importmaps = new TreeMap<>();
             // Create new merged pom.xml
             pom.getDependencies().clear();
-            Map<String, Dependency> newDependencies = new HashMap<>();
-            Map<String, Developer> newDevelopers = new HashMap<>();
-            Map<String, License> newLicenses = new HashMap<>();
+            // In the order of the dependencies, so the same composite gives the same pom
+            Map<String, Dependency> newDependencies = new LinkedHashMap<>();
+            Map<String, Developer> newDevelopers = new LinkedHashMap<>();
+            Map<String, License> newLicenses = new LinkedHashMap<>();
             int countMvnpmMoreTgz = 0;
 
             for (Dependency dependency : dependencies) {
@@ -272,11 +278,8 @@ public class CompositeCreator {
             properties.setProperty("groupId", pom.getGroupId());
             properties.setProperty("artifactId", pom.getArtifactId());
             properties.setProperty("version", pom.getVersion());
-            try (StringWriter writer = new StringWriter()) {
-                properties.store(writer, "Generated by mvnpm.org");
-                writeEntry(mergedJar, "META-INF/maven/" + pom.getGroupId() + "/" + pom.getArtifactId() + "/pom.properties",
-                        writer.toString());
-            }
+            writeEntry(mergedJar, "META-INF/maven/" + pom.getGroupId() + "/" + pom.getArtifactId() + "/pom.properties",
+                    Reproducible.properties(properties, "Generated by mvnpm.org"));
 
             Log.info(pom.getGroupId() + ":" + pom.getArtifactId() + ":" + pom.getVersion() + " created");
 
@@ -303,12 +306,15 @@ public class CompositeCreator {
         try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
             IOUtils.copy(inputJar, baos);
             try (ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
-                    GzipCompressorInputStream gzipIn = new GzipCompressorInputStream(bais);
-                    TarArchiveInputStream tgzIn = new TarArchiveInputStream(gzipIn)) {
+                    InputStream gzipIn = CompressionPool.shared().gzipInput(bais);
+                    TarArchiveInputStream tgzIn = new TarArchiveInputStream(gzipIn);
+                    CompressionPool.Lease<byte[]> buffer = CompressionPool.shared().buffer()) {
                 TarArchiveEntry tgzEntry;
                 while ((tgzEntry = tgzIn.getNextTarEntry()) != null) {
-                    commonTgz.putArchiveEntry(tgzEntry);
-                    IOUtils.copy(tgzIn, commonTgz);
+                    // Only the name and content, the rest is normalized
+                    commonTgz.putArchiveEntry(Reproducible.tarEntry(tgzEntry.getName(), tgzEntry.getSize(),
+                            Reproducible.DEFAULT_TIME));
+                    IOUtils.copyLarge(tgzIn, commonTgz, buffer.get());
                     commonTgz.closeArchiveEntry();
                 }
             }
@@ -354,12 +360,8 @@ public class CompositeCreator {
             p.setProperty("groupId", pom.getGroupId());
             p.setProperty("artifactId", pom.getArtifactId());
             p.setProperty("version", pom.getVersion());
-            try (StringWriter writer = new StringWriter()) {
-                p.store(writer, "Generated by mvnpm.org");
-                String pomProperties = writer.toString();
-                writeEntry(mergedJar, "META-INF/maven/" + pom.getGroupId() + "/" + pom.getArtifactId() + "/pom.properties",
-                        pomProperties);
-            }
+            writeEntry(mergedJar, "META-INF/maven/" + pom.getGroupId() + "/" + pom.getArtifactId() + "/pom.properties",
+                    Reproducible.properties(p, "Generated by mvnpm.org"));
 
             Log.info(pom.getGroupId() + ":" + pom.getArtifactId() + ":" + pom.getVersion() + " source created");
         }
@@ -409,7 +411,7 @@ public class CompositeCreator {
     }
 
     private Map<String, Dependency> mapByGA(List<Dependency> l) {
-        Map<String, Dependency> m = new HashMap<>();
+        Map<String, Dependency> m = new LinkedHashMap<>();
         for (Dependency d : l) {
             m.put(d.getGroupId() + ":" + d.getArtifactId(), d);
         }
@@ -421,20 +423,23 @@ public class CompositeCreator {
     }
 
     private void writeEntry(JarOutputStream jar, String name, byte[] bytes) throws IOException {
-        JarEntry entry = new JarEntry(name);
+        JarEntry entry = newEntry(name);
+        if (CompressionPolicy.methodFor(name, bytes, bytes.length) == ZipEntry.STORED) {
+            CompressionPolicy.stored(entry, bytes);
+        }
         jar.putNextEntry(entry);
         jar.write(bytes);
         jar.closeEntry();
     }
 
     private void writeEntry(JarOutputStream mergedJar, String name, Path path) throws IOException {
-        JarEntry entry = new JarEntry(name);
+        JarEntry entry = newEntry(name);
         mergedJar.putNextEntry(entry);
-        try (InputStream fileInputStream = Files.newInputStream(path)) {
+        try (InputStream fileInputStream = Files.newInputStream(path);
+                CompressionPool.Lease<byte[]> buffer = CompressionPool.shared().buffer()) {
             int bytesRead;
-            byte[] buffer = new byte[4096];
-            while ((bytesRead = fileInputStream.read(buffer)) != -1) {
-                mergedJar.write(buffer, 0, bytesRead);
+            while ((bytesRead = fileInputStream.read(buffer.get())) != -1) {
+                mergedJar.write(buffer.get(), 0, bytesRead);
             }
         } catch (IOException e) {
             throw new RuntimeException("Error jarring file content for " + path, e);
@@ -443,45 +448,52 @@ public class CompositeCreator {
     }
 
     private void writeEntry(JarInputStream inputJar, JarOutputStream mergedJar, JarEntry entry) throws IOException {
-        mergedJar.putNextEntry(entry);
-
-        // Read the content of the entry and write it to the merged JAR
-        byte[] buffer = new byte[4096];
-        int bytesRead;
-        while ((bytesRead = inputJar.read(buffer)) != -1) {
-            mergedJar.write(buffer, 0, bytesRead);
-        }
-        mergedJar.closeEntry();
+        writeEntry(inputJar, mergedJar, "", entry);
     }
 
     private void writeEntry(JarInputStream inputJar, JarOutputStream mergedJar, String root, JarEntry entry)
             throws IOException {
         // Create a new entry with the desired name
         String newEntryName = root + entry.getName();
-        JarEntry newEntry = new JarEntry(newEntryName);
+        if (CompressionPolicy.isCompressedByName(newEntryName)) {
+            // STORED needs the size and crc up front
+            writeEntry(mergedJar, newEntryName, inputJar.readAllBytes());
+            return;
+        }
+        JarEntry newEntry = newEntry(newEntryName);
         mergedJar.putNextEntry(newEntry);
 
         // Read the content of the entry and write it to the merged JAR
-        byte[] buffer = new byte[4096];
-        int bytesRead;
-        while ((bytesRead = inputJar.read(buffer)) != -1) {
-            mergedJar.write(buffer, 0, bytesRead);
+        try (CompressionPool.Lease<byte[]> buffer = CompressionPool.shared().buffer()) {
+            int bytesRead;
+            while ((bytesRead = inputJar.read(buffer.get())) != -1) {
+                mergedJar.write(buffer.get(), 0, bytesRead);
+            }
         }
         mergedJar.closeEntry();
     }
 
+    /**
+     * A composite has no npm tarball of its own, so all entries get the default time
+     */
+    private static JarEntry newEntry(String name) {
+        JarEntry entry = new JarEntry(name);
+        entry.setTime(Reproducible.zipTime(Reproducible.DEFAULT_TIME));
+        return entry;
+    }
+
     private Map<String, String> getImportMap(JarInputStream inputJar) throws IOException {
         String json = getEntryContent(inputJar);
         return ImportsDataBinding.toImports(json).getImports();
     }
 
     public String getEntryContent(JarInputStream inputJar) throws IOException {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                CompressionPool.Lease<byte[]> buffer = CompressionPool.shared().buffer()) {
             // Read the content of the entry and write it to a String
-            byte[] buffer = new byte[4096];
             int bytesRead;
-            while ((bytesRead = inputJar.read(buffer)) != -1) {
-                baos.write(buffer, 0, bytesRead);
+            while ((bytesRead = inputJar.read(buffer.get())) != -1) {
+                baos.write(buffer.get(), 0, bytesRead);
             }
             byte[] bytes = baos.toByteArray();
             return new String(bytes);
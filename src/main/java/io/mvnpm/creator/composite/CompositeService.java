@@ -51,6 +51,14 @@ public class CompositeService {
         return packageFileLocator.getLocalFullPath(type, fullName, version, Optional.of(Constants.DOT_MD5));
     }
 
+    public Path getSha256Path(Name fullName, String version, FileType type) {
+        return packageFileLocator.getLocalFullPath(type, fullName, version, Optional.of(Constants.DOT_SHA256));
+    }
+
+    public Path getSha512Path(Name fullName, String version, FileType type) {
+        return packageFileLocator.getLocalFullPath(type, fullName, version, Optional.of(Constants.DOT_SHA512));
+    }
+
     public Path getAscPath(Name fullName, String version, FileType type) {
         return packageFileLocator.getLocalFullPath(type, fullName, version, Optional.of(Constants.DOT_ASC));
     }
@@ -55,7 +55,7 @@ public class AscService {
         }
     }
 
-    private PGPSecretKeyRing getSecretKeyRing() {
+    PGPSecretKeyRing getSecretKeyRing() {
         return this.secretKeyRing;
     }
 
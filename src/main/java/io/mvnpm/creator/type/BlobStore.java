@@ -0,0 +1,225 @@
+package io.mvnpm.creator.type;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.mvnpm.creator.PackageFileLocator;
+import io.mvnpm.creator.utils.CompressionPool;
+import io.mvnpm.creator.utils.FileUtil;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.configuration.MemorySize;
+
+/**
+ * Content addressed store of deflated file contents, keyed by the sha256 of the contents and shared by all packages.
+ * A file that did not change since the previous version (or that many packages vendor) is deflated only once,
+ * after that its entries in the jar and the source jar are assembled from the stored deflated data.
+ * Evicts least recently used blobs when the total size goes over the configured maximum.
+ *
+ * Only files between the min-size and max-entry-size go through the store, they are read whole to be hashed. The
+ * others are streamed into the jars. A blob is only used when it inflates to the contents, otherwise it is replaced.
+ */
+@ApplicationScoped
+public class BlobStore {
+
+    @Inject
+    PackageFileLocator packageFileLocator;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    // Opt-in, the entries it takes are read whole (and hashed) instead of streamed
+    @ConfigProperty(name = "mvnpm.blob-store.enabled", defaultValue = "false")
+    boolean enabled;
+
+    // Smaller files are cheaper to deflate than to look up
+    @ConfigProperty(name = "mvnpm.blob-store.min-size", defaultValue = "4K")
+    MemorySize minSize;
+
+    // Bigger files are streamed (and deflated) as before, they are not held in memory
+    @ConfigProperty(name = "mvnpm.blob-store.max-entry-size", defaultValue = "1M")
+    MemorySize maxEntrySize;
+
+    @ConfigProperty(name = "mvnpm.blob-store.max-size", defaultValue = "4G")
+    MemorySize maxSize;
+
+    // Access ordered, so the first entry is the least recently used. Built lazily from the files on disk.
+    private LinkedHashMap<Path, Long> index;
+    private long totalBytes;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param size of the (uncompressed) contents, negative when unknown
+     * @return if contents of this size go through the store, the others are best streamed
+     */
+    public boolean accepts(long size) {
+        return enabled && size >= minSize.asLongValue() && size <= maxEntrySize.asLongValue();
+    }
+
+    /**
+     * @return the raw deflate data (no zlib wrapper) of the contents, from the store when it has them
+     */
+    public byte[] deflated(byte[] contents) {
+        if (!accepts(contents.length)) {
+            return JarWriter.deflate(contents);
+        }
+        Path blob = blobFile(sha256(contents));
+        try {
+            byte[] data = Files.readAllBytes(blob);
+            if (inflatesTo(data, contents)) {
+                used(blob, data.length);
+                meterRegistry.counter("mvnpm.blob-store", "result", "hit").increment();
+                return data;
+            }
+            // Truncated or damaged on disk, it is replaced below
+            Log.warnf("Blob %s does not match its contents, deflating it again", blob);
+            meterRegistry.counter("mvnpm.blob-store", "result", "corrupt").increment();
+        } catch (NoSuchFileException e) {
+            // Not deflated before
+        } catch (IOException e) {
+            Log.warnf("Could not read blob %s: %s", blob, e.getMessage());
+        }
+        meterRegistry.counter("mvnpm.blob-store", "result", "miss").increment();
+        byte[] data = JarWriter.deflate(contents);
+        try {
+            // Written atomically, so a blob is always complete. The same content always gives the same blob.
+            FileUtil.createDirectories(blob);
+            FileUtil.writeAtomic(blob, data);
+            used(blob, data.length);
+        } catch (UncheckedIOException e) {
+            // Only costs deflating it again next time
+            Log.warnf("Could not store blob %s: %s", blob, e.getMessage());
+        }
+        return data;
+    }
+
+    /**
+     * Inflating is much cheaper than deflating, so a blob is checked against the contents before it is used
+     */
+    static boolean inflatesTo(byte[] data, byte[] contents) {
+        CompressionPool pool = CompressionPool.shared();
+        try (CompressionPool.Lease<Inflater> inflater = pool.inflater();
+                CompressionPool.Lease<byte[]> buffer = pool.buffer()) {
+            inflater.get().setInput(data);
+            int offset = 0;
+            while (!inflater.get().finished()) {
+                int length = inflater.get().inflate(buffer.get());
+                if (length == 0 && (inflater.get().needsInput() || inflater.get().needsDictionary())) {
+                    // Truncated
+                    return false;
+                }
+                if (offset + length > contents.length
+                        || !Arrays.equals(buffer.get(), 0, length, contents, offset, offset + length)) {
+                    return false;
+                }
+                offset += length;
+            }
+            return offset == contents.length && inflater.get().getRemaining() == 0;
+        } catch (DataFormatException e) {
+            return false;
+        }
+    }
+
+    private Path blobFile(String sha256) {
+        return getBlobDir().resolve(sha256.substring(0, 2)).resolve(sha256.substring(2) + DOT_DEFLATE);
+    }
+
+    private synchronized void used(Path blob, long size) {
+        Long previous = getIndex().put(blob, size);
+        totalBytes += size - (previous == null ? 0 : previous);
+        evict();
+    }
+
+    private void evict() {
+        long max = maxSize.asLongValue();
+        Iterator<Map.Entry<Path, Long>> eldest = index.entrySet().iterator();
+        while (totalBytes > max && eldest.hasNext()) {
+            Map.Entry<Path, Long> entry = eldest.next();
+            try {
+                Files.deleteIfExists(entry.getKey());
+            } catch (IOException e) {
+                Log.warnf("Could not evict blob %s: %s", entry.getKey(), e.getMessage());
+            }
+            totalBytes -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    private LinkedHashMap<Path, Long> getIndex() {
+        if (index == null) {
+            index = new LinkedHashMap<>(1024, 0.75f, true);
+            totalBytes = 0;
+            Path blobDir = getBlobDir();
+            if (Files.isDirectory(blobDir)) {
+                try (Stream<Path> files = Files.walk(blobDir)) {
+                    // Oldest first, the closest we have to least recently used after a restart
+                    files.filter(f -> f.getFileName().toString().endsWith(DOT_DEFLATE))
+                            .map(f -> Map.entry(f, lastModified(f)))
+                            .sorted(Map.Entry.comparingByValue())
+                            .forEach(e -> {
+                                long size = size(e.getKey());
+                                index.put(e.getKey(), size);
+                                totalBytes += size;
+                            });
+                } catch (IOException | UncheckedIOException e) {
+                    Log.warnf("Could not index blobs in %s: %s", blobDir, e.getMessage());
+                }
+            }
+            meterRegistry.gauge("mvnpm.blob-store.size", this, s -> s.totalBytes);
+        }
+        return index;
+    }
+
+    private Path getBlobDir() {
+        return packageFileLocator.getCacheDir().resolve(BLOBS);
+    }
+
+    private static String sha256(byte[] contents) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(contents));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static final String BLOBS = "blobs/sha256";
+    private static final String DOT_DEFLATE = ".deflate";
+}
@@ -1,12 +1,12 @@
 package io.mvnpm.creator.type;
 
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.List;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 
-import io.mvnpm.creator.utils.FileUtil;
+import io.mvnpm.creator.utils.Sidecars;
 import io.quarkus.logging.Log;
 
 /**
@@ -17,11 +17,28 @@ import io.quarkus.logging.Log;
 @ApplicationScoped
 public class HashService {
 
+    @Inject
+    AscService ascService;
+
     public List<Path> createHashes(Path filePath) {
-        List<Path> hashes = new ArrayList<>();
-        hashes.add(FileUtil.createSha1(filePath));
-        hashes.add(FileUtil.createMd5(filePath));
-        Log.debug("file hashes created (sha1 and md5) " + filePath + " [ok]");
+        List<Path> hashes = Sidecars.createFor(filePath, null);
+        Log.debug("file hashes created " + filePath + " [ok]");
         return hashes;
     }
+
+    /**
+     * Hashes and signature (with its own hashes) for a file, from one read of the file
+     */
+    public List<Path> createSidecars(Path filePath) {
+        List<Path> sidecars = Sidecars.createFor(filePath, ascService.getSecretKeyRing());
+        Log.debug("file hashes and signature created " + filePath + " [ok]");
+        return sidecars;
+    }
+
+    /**
+     * To compute the hashes and signature while the file is being written
+     */
+    public Sidecars newSidecars(Path filePath) {
+        return Sidecars.of(filePath, ascService.getSecretKeyRing());
+    }
 }
@@ -1,7 +1,6 @@
 package io.mvnpm.creator.type;
 
-import java.io.BufferedOutputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -9,32 +8,39 @@ import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
-import org.apache.commons.compress.archivers.ArchiveEntry;
-import org.apache.commons.compress.archivers.ArchiveException;
-import org.apache.commons.compress.archivers.ArchiveStreamFactory;
 import org.apache.commons.compress.archivers.jar.JarArchiveEntry;
 import org.apache.commons.compress.archivers.jar.JarArchiveOutputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
-import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
-import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.TeeInputStream;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
 import io.mvnpm.Constants;
+import io.mvnpm.creator.utils.CompressionPool;
 import io.mvnpm.creator.utils.FileUtil;
 import io.mvnpm.creator.utils.ImportMapUtil;
+import io.mvnpm.creator.utils.Reproducible;
 import io.mvnpm.importmap.Location;
 import io.mvnpm.npm.model.Package;
 import io.quarkus.logging.Log;
+import io.quarkus.runtime.configuration.MemorySize;
 
 /**
  * Create the jar from the npm content
@@ -47,13 +53,37 @@ public class JarService {
     @Inject
     ImportMapUtil importMapUtil;
 
+    @Inject
+    SourceService sourceService;
+
+    @Inject
+    BlobStore blobStore;
+
+    // Packages that unpack to more than this are deflated in parallel
+    @ConfigProperty(name = "mvnpm.jar.parallel-threshold", defaultValue = "8M")
+    MemorySize parallelThreshold;
+
+    @ConfigProperty(name = "mvnpm.jar.parallel-threads", defaultValue = "4")
+    int parallelThreads;
+
+    // A bigger .more.tgz (type definitions) spills to a temp file
+    @ConfigProperty(name = "mvnpm.jar.more-archive.memory-threshold", defaultValue = "4M")
+    MemorySize moreArchiveThreshold;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private final AtomicReference<ExecutorService> executor = new AtomicReference<>();
+
     public Path createEmptyJar(Path forJar, String replaceJarWith) {
         Path emptyFile = Paths.get(forJar.toString().replace(Constants.DOT_JAR, replaceJarWith));
         if (!Files.exists(emptyFile)) {
             final Path temp = FileUtil.getTempFilePathFor(emptyFile);
+            // Same time as the jar, taken from the tgz next to it
+            Instant time = Reproducible.timeOf(Paths.get(forJar.toString().replace(Constants.DOT_JAR, Constants.DOT_TGZ)));
             try (OutputStream fileOutput = Files.newOutputStream(temp);
                     JarArchiveOutputStream jarOutput = new JarArchiveOutputStream(fileOutput)) {
-                emptyJar(jarOutput);
+                emptyJar(jarOutput, time);
                 jarOutput.finish();
                 FileUtil.forceMoveAtomic(temp, emptyFile);
             } catch (IOException ex) {
@@ -63,10 +93,11 @@ public class JarService {
         return emptyFile;
     }
 
-    private void emptyJar(JarArchiveOutputStream jarOutput) throws IOException {
+    private void emptyJar(JarArchiveOutputStream jarOutput, Instant time) throws IOException {
         JarArchiveEntry entry = new JarArchiveEntry("README.md");
         byte[] filecontents = CONTENTS.getBytes();
         entry.setSize(filecontents.length);
+        entry.setTime(Reproducible.zipTime(time));
         jarOutput.putArchiveEntry(entry);
         jarOutput.write(filecontents);
         jarOutput.closeArchiveEntry();
@@ -84,21 +115,28 @@ public class JarService {
         }
         FileUtil.createDirectories(jarOutputPath);
         final Path tempFile = FileUtil.getTempFilePathFor(jarOutputPath);
-        try (OutputStream fileOutput = Files.newOutputStream(tempFile);
-                JarArchiveOutputStream jarOutput = new JarArchiveOutputStream(fileOutput)) {
+        // Every entry gets the time of the package, so a rebuild (on any pod) gives the same bytes
+        final Instant time = Reproducible.timeOf(tgzPath);
+        try (JarWriter jarOutput = newJarWriter(p, tempFile, time);
+                SourceService.SourceJar sourceJar = sourceService.open(tgzPath, time);
+                MoreArchive moreArchive = new MoreArchive(FileUtil.getTempFilePathFor(tempFile),
+                        moreArchiveThreshold.asLongValue(), time)) {
 
             // Pom details
             String pomXmlDir = POM_ROOT + p.name().mvnGroupId + Constants.SLASH + p.name().mvnArtifactId + Constants.SLASH;
 
             // Pom xml entry
-            writeJarEntry(jarOutput, pomXmlDir + POM_DOT_XML, pomPath);
+            jarOutput.write(pomXmlDir + POM_DOT_XML, pomPath);
 
             // Pom properties entry
-            writeJarEntry(jarOutput, pomXmlDir + POM_DOT_PROPERTIES, createPomProperties(p));
+            jarOutput.write(pomXmlDir + POM_DOT_PROPERTIES, createPomProperties(p));
 
-            // Tar contents
-            tgzToJar(p, tgzPath, jarOutput);
+            // Tar contents, and the source jar from the same read
+            tgzToJar(p, tgzPath, jarOutput, sourceJar, moreArchive);
 
+            if (sourceJar != null) {
+                sourceJar.finish();
+            }
             jarOutput.finish();
             FileUtil.forceMoveAtomic(tempFile, jarOutputPath);
         } catch (IOException ex) {
@@ -106,35 +144,95 @@ public class JarService {
         }
     }
 
-    private void tgzToJar(io.mvnpm.npm.model.Package p, Path tgzPath, JarArchiveOutputStream jarOutput) throws IOException {
+    /**
+     * Big packages are deflated on the worker pool, the jar is the same either way
+     */
+    private JarWriter newJarWriter(io.mvnpm.npm.model.Package p, Path jarFile, Instant time) throws IOException {
+        if (isParallel(p)) {
+            return JarWriter.parallel(jarFile, time, executor(), parallelThreads * 2, blobStore);
+        }
+        return JarWriter.sequential(jarFile, time, blobStore);
+    }
+
+    boolean isParallel(io.mvnpm.npm.model.Package p) {
+        return parallelThreads > 1 && p.dist() != null
+                && p.dist().unpackedSize() > parallelThreshold.asLongValue();
+    }
+
+    private ExecutorService executor() {
+        return executor.updateAndGet(e -> e == null ? Executors.newFixedThreadPool(parallelThreads, r -> {
+            Thread thread = new Thread(r, "mvnpm-jar-deflate");
+            thread.setDaemon(true);
+            return thread;
+        }) : e);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        ExecutorService e = executor.getAndSet(null);
+        if (e != null) {
+            e.shutdownNow();
+        }
+    }
+
+    private void tgzToJar(io.mvnpm.npm.model.Package p, Path tgzPath, JarWriter jarOutput,
+            SourceService.SourceJar sourceJar, MoreArchive moreArchive) throws IOException {
 
+        CompressionPool pool = CompressionPool.shared();
         try (InputStream tgzInputStream = Files.newInputStream(tgzPath);
-                GzipCompressorInputStream gzipInputStream = new GzipCompressorInputStream(tgzInputStream);
-                TarArchiveInputStream tarArchiveInputStream = new TarArchiveInputStream(gzipInputStream)) {
-            final Map<String, byte[]> toTgz = new LinkedHashMap<>();
-            final Map<String, byte[]> toImportMap = new LinkedHashMap<>();
+                InputStream gzipInputStream = pool.gzipInput(tgzInputStream);
+                TarArchiveInputStream tarArchiveInputStream = new TarArchiveInputStream(gzipInputStream);
+                CompressionPool.Lease<byte[]> pooledBuffer = pool.buffer()) {
+            final Map<String, Package> toImportMap = new LinkedHashMap<>();
+            final String importMapRoot = importMapUtil.getImportMapRoot(p);
+            final byte[] buffer = pooledBuffer.get();
             for (TarArchiveEntry entry = tarArchiveInputStream.getNextEntry(); entry != null; entry = tarArchiveInputStream
                     .getNextEntry()) {
-                tgzEntryToJarEntry(p, entry, tarArchiveInputStream, toTgz, toImportMap, jarOutput);
+                if (sourceJar == null) {
+                    tgzEntryToJarEntry(importMapRoot, entry, tarArchiveInputStream, moreArchive, toImportMap, jarOutput,
+                            buffer);
+                } else if (blobStore != null && blobStore.accepts(entry.getSize())) {
+                    // Both jars take the deflated data of the entry from the blob store, so it is deflated once
+                    byte[] contents = tarArchiveInputStream.readAllBytes();
+                    sourceJar.write(entry, contents);
+                    tgzEntryToJarEntry(importMapRoot, entry, new ByteArrayInputStream(contents), moreArchive, toImportMap,
+                            jarOutput, buffer);
+                } else {
+                    // Whatever is read for the jar also goes to the source jar, the rest is copied after
+                    sourceJar.putEntry(entry);
+                    InputStream tee = new TeeInputStream(tarArchiveInputStream, sourceJar.output());
+                    tgzEntryToJarEntry(importMapRoot, entry, tee, moreArchive, toImportMap, jarOutput, buffer);
+                    IOUtils.copyLarge(tee, OutputStream.nullOutputStream(), buffer);
+                    sourceJar.closeEntry();
+                }
             }
             // More.tar.gz
-            if (!toTgz.isEmpty()) {
-                final byte[] bytes = tarGz(toTgz);
-                writeJarEntry(jarOutput, MVNPM_MORE_ARCHIVE, bytes);
+            if (!moreArchive.isEmpty()) {
+                moreArchive.writeTo(jarOutput, MVNPM_MORE_ARCHIVE);
+                DistributionSummary.builder("mvnpm.jar.more-archive.size")
+                        .baseUnit(BaseUnits.BYTES)
+                        .tag("storage", moreArchive.isInMemory() ? "memory" : "file")
+                        .register(meterRegistry)
+                        .record(moreArchive.size());
             }
             // Import map
             if (!toImportMap.isEmpty()) {
-                writeJarEntry(jarOutput, Location.IMPORTMAP_PATH, importMapUtil.createImportMap(toImportMap));
+                jarOutput.write(Location.IMPORTMAP_PATH,
+                        importMapUtil.createImportMap(toImportMap.remove(ImportMapUtil.PACKAGE_JSON), toImportMap));
             }
 
         }
     }
 
-    private void tgzEntryToJarEntry(io.mvnpm.npm.model.Package p, ArchiveEntry entry, TarArchiveInputStream tar,
-            Map<String, byte[]> toTgz,
-            Map<String, byte[]> toImportMap,
-            JarArchiveOutputStream jarOutput) throws IOException {
-        String importMapRoot = importMapUtil.getImportMapRoot(p);
+    /**
+     * Streams the tar entry straight into the jar, or into the .more.tgz. Of the package.json files only what
+     * the import map needs is kept in memory, the import map is created after the tar is read.
+     */
+    private void tgzEntryToJarEntry(String importMapRoot, TarArchiveEntry entry, InputStream tar,
+            MoreArchive moreArchive,
+            Map<String, Package> toImportMap,
+            JarWriter jarOutput,
+            byte[] buffer) throws IOException {
         // Let's filter out files we do not need..
         String name = entry.getName();
         final boolean shouldAdd = !matches(FILES_TO_EXCLUDE, name);
@@ -147,23 +245,23 @@ public class JarService {
         final String tarEntryPath = importMapRoot + name;
         final boolean isRelativeLink = isRelativeLink(jarEntryPath, tarEntryPath, shouldTgz);
 
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                BufferedOutputStream bos = new BufferedOutputStream(baos, bufferSize)) {
-            IOUtils.copy(tar, bos, bufferSize);
-            bos.flush();
-            baos.flush();
-            if (shouldAdd && !isRelativeLink) {
-                byte[] contents = baos.toByteArray();
-                writeJarEntry(jarOutput, jarEntryPath, contents);
-                // Also gather all package.json
-                if (jarEntryPath.endsWith("/package.json")) {
-                    toImportMap.put(name, contents);
+        if (shouldAdd && !isRelativeLink) {
+            if (jarEntryPath.endsWith("/package.json")) {
+                // Also gather all package.json, only what the import map needs is kept
+                byte[] contents = tar.readAllBytes();
+                jarOutput.write(jarEntryPath, contents);
+                Package packageJson = importMapUtil.readPackageJson(name, contents);
+                if (packageJson != null) {
+                    toImportMap.put(name, packageJson);
                 }
-            } else if (shouldTgz && !isRelativeLink) {
-                // We don't add the META-INF because the tgz is already in META-INF
-                toTgz.put("resources" + importMapRoot + name, baos.toByteArray());
+            } else {
+                jarOutput.write(jarEntryPath, entry.getSize(), tar, buffer);
             }
+        } else if (shouldTgz && !isRelativeLink) {
+            // We don't add the META-INF because the tgz is already in META-INF
+            moreArchive.add("resources" + importMapRoot + name, entry.getSize(), tar, buffer);
         }
+        // Anything else is skipped by the tar stream when moving to the next entry (or copied to the source jar)
     }
 
     private boolean isRelativeLink(final String jarEntryPath, final String tarEntryPath, final boolean shouldTgz) {
@@ -172,32 +270,6 @@ public class JarService {
                 || (shouldTgz && (tarEntryPath.startsWith(".") || tarEntryPath.contains("/./")));
     }
 
-    private byte[] tarGz(Map<String, byte[]> toCompress) throws IOException {
-        // Step 1, 2 and 3: Create tar archive from map
-        ByteArrayOutputStream tarOutput = new ByteArrayOutputStream();
-        try (TarArchiveOutputStream tarArchiveOutputStream = new ArchiveStreamFactory()
-                .createArchiveOutputStream(ArchiveStreamFactory.TAR, tarOutput)) {
-            tarArchiveOutputStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
-            for (Map.Entry<String, byte[]> entry : toCompress.entrySet()) {
-                TarArchiveEntry tarEntry = new TarArchiveEntry(entry.getKey());
-                tarEntry.setSize(entry.getValue().length);
-                tarArchiveOutputStream.putArchiveEntry(tarEntry);
-                tarArchiveOutputStream.write(entry.getValue());
-                tarArchiveOutputStream.closeArchiveEntry();
-            }
-        } catch (ArchiveException e) {
-            throw new RuntimeException(e);
-        }
-
-        // Step 4: Compress tar archive to tar.gz
-        ByteArrayOutputStream gzipOutput = new ByteArrayOutputStream();
-        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(gzipOutput)) {
-            gzipOutputStream.write(tarOutput.toByteArray());
-        }
-
-        return gzipOutput.toByteArray();
-    }
-
     static boolean matches(List<String> suffixes, String name) {
         for (String suffix : suffixes) {
             if (name.toLowerCase().endsWith(suffix.toLowerCase())) {
@@ -207,40 +279,13 @@ public class JarService {
         return false;
     }
 
-    private byte[] createPomProperties(io.mvnpm.npm.model.Package p) throws IOException {
+    private byte[] createPomProperties(io.mvnpm.npm.model.Package p) {
         Properties properties = new Properties();
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            properties.setProperty(Constants.GROUP_ID, p.name().mvnGroupId);
-            properties.setProperty(Constants.ARTIFACT_ID, p.name().mvnArtifactId);
-            properties.setProperty(Constants.VERSION, p.version());
-            properties.setProperty(Constants.MVNPM_PACKAGING_VERSION_KEY, Constants.MVNPM_PACKAGING_VERSION);
-            properties.store(baos, POM_DOT_PROPERTIES_COMMENT);
-            return baos.toByteArray();
-        }
-    }
-
-    private void writeJarEntry(JarArchiveOutputStream jarOutput, String filename, Path path) throws IOException {
-        JarArchiveEntry entry = new JarArchiveEntry(filename);
-        entry.setSize(Files.size(path));
-        jarOutput.putArchiveEntry(entry);
-        try (InputStream fileInputStream = Files.newInputStream(path)) {
-            int bytesRead;
-            byte[] buffer = new byte[4096];
-            while ((bytesRead = fileInputStream.read(buffer)) != -1) {
-                jarOutput.write(buffer, 0, bytesRead);
-            }
-        } catch (IOException e) {
-            throw new RuntimeException("Error jarring file content for " + path, e);
-        }
-        jarOutput.closeArchiveEntry();
-    }
-
-    private void writeJarEntry(JarArchiveOutputStream jarOutput, String filename, byte[] filecontents) throws IOException {
-        JarArchiveEntry entry = new JarArchiveEntry(filename);
-        entry.setSize(filecontents.length);
-        jarOutput.putArchiveEntry(entry);
-        jarOutput.write(filecontents);
-        jarOutput.closeArchiveEntry();
+        properties.setProperty(Constants.GROUP_ID, p.name().mvnGroupId);
+        properties.setProperty(Constants.ARTIFACT_ID, p.name().mvnArtifactId);
+        properties.setProperty(Constants.VERSION, p.version());
+        properties.setProperty(Constants.MVNPM_PACKAGING_VERSION_KEY, Constants.MVNPM_PACKAGING_VERSION);
+        return Reproducible.properties(properties, POM_DOT_PROPERTIES_COMMENT);
     }
 
     private static final String PACKAGE = "package";
@@ -252,7 +297,6 @@ public class JarService {
     private static final String POM_DOT_XML = "pom.xml";
     private static final String POM_DOT_PROPERTIES = "pom.properties";
     private static final String POM_DOT_PROPERTIES_COMMENT = "Generated by mvnpm.org";
-    private final int bufferSize = 4096;
 
     // Files to add in a tgz compressed file in the jar
     static final List<String> FILES_TO_TGZ = List.of(".d.ts", ".d.ts.map");
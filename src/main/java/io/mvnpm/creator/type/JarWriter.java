@@ -0,0 +1,221 @@
+package io.mvnpm.creator.type;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.compress.archivers.jar.JarArchiveEntry;
+import org.apache.commons.compress.archivers.zip.JarMarker;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
+
+import io.mvnpm.creator.utils.CompressionPolicy;
+import io.mvnpm.creator.utils.CompressionPool;
+import io.mvnpm.creator.utils.Reproducible;
+
+/**
+ * Writes the entries of a jar, deflating them either inline or on a worker pool.
+ * Already compressed content is STORED (see {@link CompressionPolicy}), decided on the first bytes of an entry
+ * so both modes decide the same.
+ *
+ * In parallel mode the entries are deflated concurrently but written in the order they were added,
+ * so both modes give the same jar. Only entries up to {@link #MAX_PARALLEL_ENTRY_SIZE} are held in memory for that,
+ * bigger ones are streamed inline once the entries before them are written. The jar is written to a seekable file
+ * in both modes, so the sizes and crc always end up in the local headers (no data descriptors).
+ * All entries get the same given time, so the same entries give the same bytes (see {@link Reproducible}).
+ * With a {@link BlobStore} the deflated data of unchanged files is taken from the store instead of deflated again,
+ * those entries are then added raw in both modes. Files the store does not take are still streamed.
+ */
+final class JarWriter implements Closeable {
+
+    private final ZipArchiveOutputStream jarOutput;
+    private final ExecutorService executor;
+    private final BlobStore blobStore;
+    private final int maxPending;
+    private final Deque<Future<DeflatedEntry>> pending = new ArrayDeque<>();
+    private final long time;
+    private boolean first = true;
+
+    private JarWriter(Path jarFile, Instant time, ExecutorService executor, int maxPending, BlobStore blobStore)
+            throws IOException {
+        this.jarOutput = new ZipArchiveOutputStream(jarFile);
+        this.time = Reproducible.zipTime(time);
+        this.executor = executor;
+        this.maxPending = maxPending;
+        this.blobStore = blobStore != null && blobStore.isEnabled() ? blobStore : null;
+    }
+
+    /**
+     * @param blobStore to take the deflated data from, can be null
+     */
+    static JarWriter sequential(Path jarFile, Instant time, BlobStore blobStore) throws IOException {
+        return new JarWriter(jarFile, time, null, 0, blobStore);
+    }
+
+    /**
+     * @param maxPending how many entries may wait to be written before adding blocks, with their size this bounds the
+     *        memory used
+     * @param blobStore to take the deflated data from, can be null
+     */
+    static JarWriter parallel(Path jarFile, Instant time, ExecutorService executor, int maxPending, BlobStore blobStore)
+            throws IOException {
+        return new JarWriter(jarFile, time, executor, maxPending, blobStore);
+    }
+
+    void write(String name, byte[] contents) throws IOException {
+        JarArchiveEntry entry = newEntry(name, contents.length, CompressionPolicy.methodFor(name, contents, contents.length));
+        if (executor != null) {
+            submit(entry, contents);
+        } else if (blobStore != null && blobStore.accepts(contents.length)) {
+            writeRaw(deflate(entry, contents));
+        } else {
+            jarOutput.putArchiveEntry(entry);
+            jarOutput.write(contents);
+            jarOutput.closeArchiveEntry();
+        }
+    }
+
+    void write(String name, long size, InputStream in, byte[] buffer) throws IOException {
+        if ((blobStore != null && blobStore.accepts(size)) || (executor != null && size <= MAX_PARALLEL_ENTRY_SIZE)) {
+            write(name, in.readAllBytes());
+            return;
+        }
+        // Streamed, once the entries before it are written
+        writePending();
+        // Peek at the start of the content to pick the compression
+        BufferedInputStream buffered = new BufferedInputStream(in, CompressionPolicy.PROBE_SIZE);
+        buffered.mark(CompressionPolicy.PROBE_SIZE);
+        byte[] head = buffered.readNBytes(CompressionPolicy.PROBE_SIZE);
+        buffered.reset();
+        jarOutput.putArchiveEntry(newEntry(name, size, CompressionPolicy.methodFor(name, head, head.length)));
+        IOUtils.copyLarge(buffered, jarOutput, buffer);
+        jarOutput.closeArchiveEntry();
+    }
+
+    void write(String name, Path path) throws IOException {
+        if (executor != null && !CompressionPolicy.isCompressedByName(name)
+                && Files.size(path) <= MAX_PARALLEL_ENTRY_SIZE) {
+            write(name, Files.readAllBytes(path));
+            return;
+        }
+        // Nothing to deflate when it is compressed already (or too big to hold), so it is streamed once the entries
+        // before it are written
+        writePending();
+        byte[] head;
+        try (InputStream in = Files.newInputStream(path)) {
+            head = in.readNBytes(CompressionPolicy.PROBE_SIZE);
+        }
+        jarOutput.putArchiveEntry(newEntry(name, Files.size(path), CompressionPolicy.methodFor(name, head, head.length)));
+        Files.copy(path, jarOutput);
+        jarOutput.closeArchiveEntry();
+    }
+
+    void finish() throws IOException {
+        writePending();
+        jarOutput.finish();
+    }
+
+    @Override
+    public void close() throws IOException {
+        pending.forEach(f -> f.cancel(true));
+        pending.clear();
+        jarOutput.close();
+    }
+
+    private JarArchiveEntry newEntry(String name, long size, int method) {
+        JarArchiveEntry entry = new JarArchiveEntry(name);
+        entry.setSize(size);
+        entry.setMethod(method);
+        entry.setTime(time);
+        if (first) {
+            // Same as JarArchiveOutputStream does
+            entry.addAsFirstExtraField(JarMarker.getInstance());
+            first = false;
+        }
+        return entry;
+    }
+
+    private void submit(JarArchiveEntry entry, byte[] contents) throws IOException {
+        pending.add(executor.submit(() -> deflate(entry, contents)));
+        while (pending.size() > maxPending) {
+            writeNext();
+        }
+    }
+
+    private void writeNext() throws IOException {
+        writeRaw(await(pending.poll()));
+    }
+
+    private void writePending() throws IOException {
+        while (!pending.isEmpty()) {
+            writeNext();
+        }
+    }
+
+    private void writeRaw(DeflatedEntry deflated) throws IOException {
+        jarOutput.addRawArchiveEntry(deflated.entry(), new ByteArrayInputStream(deflated.data()));
+    }
+
+    private static DeflatedEntry await(Future<DeflatedEntry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while deflating jar entries");
+        } catch (ExecutionException e) {
+            throw new IOException("Error deflating jar entry", e.getCause());
+        }
+    }
+
+    private DeflatedEntry deflate(JarArchiveEntry entry, byte[] contents) {
+        if (entry.getMethod() == ZipEntry.STORED) {
+            return new DeflatedEntry(CompressionPolicy.stored(entry, contents), contents);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(contents);
+        byte[] data = blobStore == null ? deflate(contents) : blobStore.deflated(contents);
+        entry.setCrc(crc.getValue());
+        entry.setCompressedSize(data.length);
+        return new DeflatedEntry(entry, data);
+    }
+
+    /**
+     * Deflate like ZipArchiveOutputStream does (default level, no zlib wrapper), so the data is the same
+     */
+    static byte[] deflate(byte[] contents) {
+        CompressionPool pool = CompressionPool.shared();
+        try (CompressionPool.Lease<Deflater> deflater = pool.deflater();
+                CompressionPool.Lease<byte[]> buffer = pool.buffer()) {
+            deflater.get().setInput(contents);
+            deflater.get().finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(BUFFER_SIZE, contents.length / 2));
+            while (!deflater.get().finished()) {
+                int length = deflater.get().deflate(buffer.get());
+                out.write(buffer.get(), 0, length);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private record DeflatedEntry(JarArchiveEntry entry, byte[] data) {
+    }
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+    // Bigger entries are not deflated on the worker pool, that would hold them in memory
+    static final long MAX_PARALLEL_ENTRY_SIZE = 1024 * 1024;
+}
@@ -0,0 +1,141 @@
+package io.mvnpm.creator.type;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
+
+import io.mvnpm.creator.utils.CompressionPool;
+import io.mvnpm.creator.utils.Reproducible;
+
+/**
+ * The side archive of a jar (the files that are not served, like the type definitions), streamed as tar+gzip.
+ * The compressed archive is kept in memory up to a threshold, bigger ones spill to a temp file.
+ */
+final class MoreArchive implements Closeable {
+
+    private final SpillingOutputStream spill;
+    private final TarArchiveOutputStream tarOutput;
+    private final Instant time;
+    private int entries = 0;
+    private boolean finished = false;
+
+    /**
+     * @param tempFile where to spill to, only created when the threshold is reached
+     */
+    MoreArchive(Path tempFile, long threshold, Instant time) throws IOException {
+        this.spill = new SpillingOutputStream(tempFile, threshold);
+        this.tarOutput = new TarArchiveOutputStream(CompressionPool.shared().gzipOutput(spill));
+        this.tarOutput.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+        this.time = time;
+    }
+
+    void add(String name, long size, InputStream in, byte[] buffer) throws IOException {
+        tarOutput.putArchiveEntry(Reproducible.tarEntry(name, size, time));
+        IOUtils.copyLarge(in, tarOutput, buffer);
+        tarOutput.closeArchiveEntry();
+        entries++;
+    }
+
+    boolean isEmpty() {
+        return entries == 0;
+    }
+
+    /**
+     * Finish the archive and add it to the jar
+     */
+    void writeTo(JarWriter jarOutput, String name) throws IOException {
+        tarOutput.finish();
+        tarOutput.close();
+        finished = true;
+        if (spill.file == null) {
+            jarOutput.write(name, spill.memory.toByteArray());
+        } else {
+            jarOutput.write(name, spill.file);
+        }
+    }
+
+    boolean isInMemory() {
+        return spill.file == null;
+    }
+
+    /**
+     * @return the compressed size so far
+     */
+    long size() {
+        return spill.size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!finished) {
+                tarOutput.close();
+            }
+        } finally {
+            if (spill.file != null) {
+                Files.deleteIfExists(spill.file);
+            }
+        }
+    }
+
+    /**
+     * Writes to memory until the threshold, then moves what it has to the file and continues there
+     */
+    private static final class SpillingOutputStream extends OutputStream {
+
+        private final Path tempFile;
+        private final long threshold;
+        private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+        private OutputStream fileOutput;
+        private Path file;
+        private long size = 0;
+
+        private SpillingOutputStream(Path tempFile, long threshold) {
+            this.tempFile = tempFile;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (fileOutput == null && size + len > threshold) {
+                fileOutput = Files.newOutputStream(tempFile);
+                file = tempFile;
+                memory.writeTo(fileOutput);
+                memory = null;
+            }
+            if (fileOutput == null) {
+                memory.write(b, off, len);
+            } else {
+                fileOutput.write(b, off, len);
+            }
+            size += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (fileOutput != null) {
+                fileOutput.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (fileOutput != null) {
+                fileOutput.close();
+            }
+        }
+    }
+}
@@ -9,6 +9,7 @@ import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -32,6 +33,7 @@ import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
 import io.mvnpm.Constants;
 import io.mvnpm.creator.utils.FileUtil;
+import io.mvnpm.creator.utils.Sidecars;
 import io.mvnpm.npm.NpmRegistryFacade;
 import io.mvnpm.npm.model.Bugs;
 import io.mvnpm.npm.model.Maintainer;
@@ -80,7 +82,8 @@ public class PomService {
 
     public void createAndSavePom(io.mvnpm.npm.model.Package p, Path localFilePath) {
         writePomToFileSystem(p, localFilePath);
-        hashService.createHashes(localFilePath);
+        // A no-op for a new pom, otherwise creates what is missing (e.g. hashes added later)
+        hashService.createSidecars(localFilePath);
     }
 
     public static List<Dependency> resolveDependencies(Model model) {
@@ -159,7 +162,11 @@ public class PomService {
         FileUtil.createDirectories(localFilePath);
         try (StringWriter out = new StringWriter()) {
             mavenXpp3Writer.write(out, model);
-            FileUtil.writeAtomic(localFilePath, out.toString());
+            byte[] pom = out.toString().getBytes(StandardCharsets.UTF_8);
+            FileUtil.writeAtomic(localFilePath, pom);
+            Sidecars sidecars = hashService.newSidecars(localFilePath);
+            sidecars.update(pom, 0, pom.length);
+            sidecars.write();
         } catch (IOException ex) {
             throw new UncheckedIOException(ex);
         }
@@ -1,27 +1,34 @@
 package io.mvnpm.creator.type;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.zip.GZIPInputStream;
+import java.time.Instant;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 
-import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.jar.JarArchiveEntry;
-import org.apache.commons.compress.archivers.jar.JarArchiveOutputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
-import org.apache.commons.compress.utils.IOUtils;
+import org.apache.commons.compress.archivers.zip.JarMarker;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
 
 import io.mvnpm.Constants;
+import io.mvnpm.creator.utils.CompressionPolicy;
+import io.mvnpm.creator.utils.CompressionPool;
 import io.mvnpm.creator.utils.FileUtil;
+import io.mvnpm.creator.utils.Reproducible;
+import io.mvnpm.creator.utils.Sidecars;
 import io.quarkus.logging.Log;
 
 /**
@@ -32,72 +39,182 @@ import io.quarkus.logging.Log;
 @ApplicationScoped
 public class SourceService {
 
+    @Inject
+    HashService hashService;
+
+    @Inject
+    BlobStore blobStore;
+
     public Path createSource(Path tgzFile) {
-        Path sourceFile = Path.of(tgzFile.toString().replace(Constants.DOT_TGZ, Constants.DASH_SOURCES_DOT_JAR));
+        Path sourceFile = getSourcePath(tgzFile);
         createJar(tgzFile, sourceFile);
         Log.debug("source created for " + tgzFile + "[ok]");
         return sourceFile;
     }
 
+    public static Path getSourcePath(Path tgzFile) {
+        return Path.of(tgzFile.toString().replace(Constants.DOT_TGZ, Constants.DASH_SOURCES_DOT_JAR));
+    }
+
+    /**
+     * Start writing the source jar of a tgz, for when the tgz is being read anyway.
+     *
+     * @param time of all entries, see {@link Reproducible#timeOf(Path)}
+     * @return null when the source jar already exists
+     */
+    public SourceJar open(Path tgzFile, Instant time) {
+        Path sourceFile = getSourcePath(tgzFile);
+        if (Files.exists(sourceFile)) {
+            return null;
+        }
+        FileUtil.createDirectories(sourceFile);
+        try {
+            BlobStore blobs = blobStore != null && blobStore.isEnabled() ? blobStore : null;
+            return new SourceJar(sourceFile, time, hashService.newSidecars(sourceFile), blobs);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
     private void createJar(Path tgzFile, Path sourceFile) {
         if (!Files.exists(sourceFile)) {
-            try {
-                Files.createDirectories(sourceFile.getParent());
-            } catch (IOException ex) {
-                throw new UncheckedIOException(ex);
-            }
-            final Path tempFile = FileUtil.getTempFilePathFor(sourceFile);
-            try (OutputStream fileOutput = Files.newOutputStream(tempFile);
-                    JarArchiveOutputStream jarOutput = new JarArchiveOutputStream(fileOutput)) {
-                tgzToJar(tgzFile, jarOutput);
-                jarOutput.finish();
-                FileUtil.forceMoveAtomic(tempFile, sourceFile);
+            try (SourceJar sourceJar = open(tgzFile, Reproducible.timeOf(tgzFile))) {
+                if (sourceJar != null) {
+                    tgzToJar(tgzFile, sourceJar);
+                    sourceJar.finish();
+                }
             } catch (IOException ex) {
                 throw new UncheckedIOException(ex);
             }
         }
     }
 
-    private void tgzToJar(Path tarFile, JarArchiveOutputStream jarOutput) throws IOException {
+    private void tgzToJar(Path tarFile, SourceJar sourceJar) throws IOException {
         if (Files.exists(tarFile)) {
             try (InputStream is = new BufferedInputStream(Files.newInputStream(tarFile))) {
-                tgzToJar(is, jarOutput);
+                tgzToJar(is, sourceJar);
             }
         }
     }
 
-    private void tgzToJar(InputStream tarInput, JarArchiveOutputStream jarOutput) throws IOException {
-        try (GZIPInputStream inputStream = new GZIPInputStream(tarInput);
-                TarArchiveInputStream tarArchiveInputStream = new TarArchiveInputStream(inputStream)) {
-
+    private void tgzToJar(InputStream tarInput, SourceJar sourceJar) throws IOException {
+        CompressionPool pool = CompressionPool.shared();
+        try (InputStream inputStream = pool.gzipInput(tarInput);
+                TarArchiveInputStream tarArchiveInputStream = new TarArchiveInputStream(inputStream);
+                CompressionPool.Lease<byte[]> buffer = pool.buffer()) {
             for (TarArchiveEntry entry = tarArchiveInputStream.getNextTarEntry(); entry != null; entry = tarArchiveInputStream
                     .getNextTarEntry()) {
-                tgzEntryToJarEntry(entry, tarArchiveInputStream, jarOutput);
+                if (sourceJar.blobStore != null && sourceJar.blobStore.accepts(entry.getSize())) {
+                    sourceJar.write(entry, tarArchiveInputStream.readAllBytes());
+                } else {
+                    sourceJar.putEntry(entry);
+                    IOUtils.copyLarge(tarArchiveInputStream, sourceJar.output(), buffer.get());
+                    sourceJar.closeEntry();
+                }
             }
         }
     }
 
-    private void tgzEntryToJarEntry(ArchiveEntry entry, TarArchiveInputStream tar, JarArchiveOutputStream jarOutput)
-            throws IOException {
+    /**
+     * A source jar being written, it only appears (with its hashes and signature) once finished.
+     * It is written to a seekable temp file, so every entry (also a STORED one) is streamed and gets its size and crc
+     * after. The hashes are then taken from the finished file.
+     */
+    public static final class SourceJar implements Closeable {
+
+        private final Path sourceFile;
+        private final Path tempFile;
+        private final long time;
+        private final Sidecars sidecars;
+        private final BlobStore blobStore;
+        private final ZipArchiveOutputStream jarOutput;
+        private boolean first = true;
+        private boolean finished = false;
+
+        private SourceJar(Path sourceFile, Instant time, Sidecars sidecars, BlobStore blobStore) throws IOException {
+            this.sourceFile = sourceFile;
+            this.time = Reproducible.zipTime(time);
+            this.tempFile = FileUtil.getTempFilePathFor(sourceFile);
+            this.sidecars = sidecars;
+            this.blobStore = blobStore;
+            this.jarOutput = new ZipArchiveOutputStream(tempFile);
+        }
 
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                BufferedOutputStream bos = new BufferedOutputStream(baos, bufferSize)) {
-            IOUtils.copy(tar, bos, bufferSize);
-            bos.flush();
-            baos.flush();
-            writeJarEntry(jarOutput, entry.getName(), baos.toByteArray());
+        /**
+         * The tar entry as is, its content is then written to {@link #output()}. Already compressed content (by name)
+         * is STORED.
+         */
+        public void putEntry(TarArchiveEntry entry) throws IOException {
+            JarArchiveEntry jarEntry = newEntry(entry, entry.getSize());
+            jarEntry.setMethod(CompressionPolicy.methodFor(entry.getName()));
+            jarOutput.putArchiveEntry(jarEntry);
         }
 
-    }
+        /**
+         * The whole tar entry, STORED when it is not worth deflating. With a blob store the deflated data is
+         * taken from there (and shared with the jar).
+         */
+        public void write(TarArchiveEntry entry, byte[] contents) throws IOException {
+            JarArchiveEntry jarEntry = newEntry(entry, contents.length);
+            if (CompressionPolicy.methodFor(entry.getName(), contents, contents.length) == ZipEntry.STORED) {
+                CompressionPolicy.stored(jarEntry, contents);
+            } else if (blobStore != null && blobStore.accepts(contents.length)) {
+                CRC32 crc = new CRC32();
+                crc.update(contents);
+                byte[] deflated = blobStore.deflated(contents);
+                jarEntry.setMethod(ZipEntry.DEFLATED);
+                jarEntry.setCrc(crc.getValue());
+                jarEntry.setCompressedSize(deflated.length);
+                jarOutput.addRawArchiveEntry(jarEntry, new ByteArrayInputStream(deflated));
+                return;
+            }
+            jarOutput.putArchiveEntry(jarEntry);
+            jarOutput.write(contents);
+            jarOutput.closeArchiveEntry();
+        }
 
-    private void writeJarEntry(JarArchiveOutputStream jarOutput, String filename, byte[] filecontents) throws IOException {
-        JarArchiveEntry entry = new JarArchiveEntry(filename);
-        entry.setSize(filecontents.length);
-        jarOutput.putArchiveEntry(entry);
-        jarOutput.write(filecontents);
-        jarOutput.closeArchiveEntry();
-    }
+        /**
+         * Only the name of the tar entry, its time and mode are not kept
+         */
+        private JarArchiveEntry newEntry(TarArchiveEntry entry, long size) {
+            JarArchiveEntry jarEntry = new JarArchiveEntry(entry.getName());
+            jarEntry.setSize(size);
+            jarEntry.setTime(time);
+            if (first) {
+                // Same as JarArchiveOutputStream does
+                jarEntry.addAsFirstExtraField(JarMarker.getInstance());
+                first = false;
+            }
+            return jarEntry;
+        }
 
-    private final int bufferSize = 4096;
+        public OutputStream output() {
+            return jarOutput;
+        }
 
+        public void closeEntry() throws IOException {
+            jarOutput.closeArchiveEntry();
+        }
+
+        public Path finish() throws IOException {
+            jarOutput.finish();
+            jarOutput.close();
+            sidecars.update(tempFile);
+            FileUtil.forceMoveAtomic(tempFile, sourceFile);
+            finished = true;
+            sidecars.write();
+            return sourceFile;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                try {
+                    jarOutput.close();
+                } finally {
+                    Files.deleteIfExists(tempFile);
+                }
+            }
+        }
+    }
 }
@@ -2,18 +2,36 @@ package io.mvnpm.creator.type;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.io.UncheckedIOException;
-import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import io.mvnpm.creator.utils.FileUtil;
+import io.mvnpm.creator.utils.Sidecars;
+import io.mvnpm.npm.model.Dist;
 import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.file.CopyOptions;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.core.http.HttpClient;
+import io.vertx.mutiny.core.http.HttpClientRequest;
+import io.vertx.mutiny.core.http.HttpClientResponse;
 
 /**
  * Downloads or stream the tar files from npm
@@ -26,6 +44,40 @@ import io.quarkus.logging.Log;
 @ApplicationScoped
 public class TgzService {
 
+    @Inject
+    Vertx vertx;
+
+    @Inject
+    HashService hashService;
+
+    @ConfigProperty(name = "mvnpm.tgz.connect-timeout", defaultValue = "10s")
+    Duration connectTimeout;
+
+    // Longest time without receiving any data
+    @ConfigProperty(name = "mvnpm.tgz.read-timeout", defaultValue = "30s")
+    Duration readTimeout;
+
+    @ConfigProperty(name = "mvnpm.tgz.download-timeout", defaultValue = "5m")
+    Duration downloadTimeout;
+
+    @ConfigProperty(name = "mvnpm.tgz.max-connections", defaultValue = "32")
+    int maxConnections;
+
+    private HttpClient httpClient;
+
+    @PostConstruct
+    void init() {
+        httpClient = vertx.createHttpClient(new HttpClientOptions()
+                .setKeepAlive(true)
+                .setMaxPoolSize(maxConnections)
+                .setConnectTimeout((int) connectTimeout.toMillis()));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        httpClient.closeAndForget();
+    }
+
     public void fetchRemoteAndSave(io.mvnpm.npm.model.Package p, Path localFileName) {
         URL tarball = p.dist().tarball();
         if (Files.exists(localFileName)) {
@@ -34,38 +86,111 @@ public class TgzService {
         }
         try {
             FileUtil.createDirectories(localFileName);
-            downloadFileTo(tarball, localFileName);
-        } catch (IOException ex) {
-            throw new RuntimeException("Error download tar from NPM " + tarball + " [" + ex.getMessage() + "]");
+            Sidecars sidecars = hashService.newSidecars(localFileName);
+            download(p.dist(), localFileName, sidecars).await().atMost(downloadTimeout);
+            sidecars.write();
+        } catch (RuntimeException ex) {
+            throw new RuntimeException("Error download tar from NPM " + tarball + " [" + ex.getMessage() + "]", ex);
         }
     }
 
-    private void downloadFileTo(URL url, Path localFileName) throws FileNotFoundException {
-        try {
-            final Path tempFile = FileUtil.getTempFilePathFor(localFileName);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    /**
+     * Stream the tarball to the local file, checking the integrity npm gives for it on the way.
+     * The local file only appears once the download is complete and verified.
+     */
+    public Uni<Void> download(Dist dist, Path localFileName) {
+        return download(dist, localFileName, null);
+    }
 
-            int responseCode = connection.getResponseCode();
-            if (responseCode != HttpURLConnection.HTTP_OK) {
-                throw new FileNotFoundException("Status: " + responseCode);
-            }
+    /**
+     * @param sidecars to also compute the hashes and signature of the tarball on the way, can be null
+     */
+    public Uni<Void> download(Dist dist, Path localFileName, Sidecars sidecars) {
+        String url = dist.tarball().toString();
+        Path tempFile = FileUtil.getTempFilePathFor(localFileName);
+        Integrity integrity = Integrity.of(dist);
+        MessageDigest digest = integrity == null ? null : integrity.newDigest();
+        RequestOptions options = new RequestOptions()
+                .setMethod(HttpMethod.GET)
+                .setAbsoluteURI(url)
+                .setFollowRedirects(true)
+                .setIdleTimeout(readTimeout.toMillis());
 
-            try (InputStream in = connection.getInputStream();
-                    OutputStream out = Files.newOutputStream(tempFile)) {
+        return httpClient.request(options)
+                .chain(HttpClientRequest::send)
+                .chain(response -> {
+                    if (response.statusCode() != 200) {
+                        // Read the body, so the connection goes back to the pool
+                        return response.body().chain(b -> Uni.createFrom()
+                                .<Void> failure(new FileNotFoundException("Status: " + response.statusCode())));
+                    }
+                    return writeTo(response, tempFile, digest, sidecars);
+                })
+                .chain(() -> {
+                    if (integrity != null && !integrity.matches(digest.digest())) {
+                        return Uni.createFrom().<Void> failure(new IOException("Integrity check failed for " + url));
+                    }
+                    return vertx.fileSystem().move(tempFile.toString(), localFileName.toString(),
+                            new CopyOptions().setReplaceExisting(true).setAtomicMove(true));
+                })
+                .onFailure().call(() -> vertx.fileSystem().delete(tempFile.toString())
+                        .onFailure().recoverWithNull());
+    }
+
+    private Uni<Void> writeTo(HttpClientResponse response, Path file, MessageDigest digest, Sidecars sidecars) {
+        return vertx.fileSystem().open(file.toString(), new OpenOptions().setWrite(true).setCreate(true))
+                .chain(asyncFile -> response.toMulti()
+                        .onItem().transformToUniAndConcatenate(buffer -> {
+                            if (digest != null) {
+                                digest.update(buffer.getDelegate().getByteBuf().nioBuffer());
+                            }
+                            if (sidecars != null) {
+                                sidecars.update(buffer.getDelegate().getByteBuf().nioBuffer());
+                            }
+                            return asyncFile.write(buffer);
+                        })
+                        .collect().last()
+                        .replaceWithVoid()
+                        .eventually(() -> asyncFile.close()));
+    }
 
-                byte[] buffer = new byte[4096];
-                int bytesRead;
+    /**
+     * The strongest digest npm gives for a tarball: the sha512 of the integrity field, else the sha1 shasum
+     */
+    record Integrity(String algorithm, byte[] expected) {
 
-                while ((bytesRead = in.read(buffer)) != -1) {
-                    out.write(buffer, 0, bytesRead);
+        static Integrity of(Dist dist) {
+            if (dist.integrity() != null) {
+                // Subresource Integrity: space separated "algorithm-base64[?options]"
+                for (String hash : dist.integrity().trim().split("\\s+")) {
+                    if (hash.startsWith(SHA512_PREFIX)) {
+                        String value = hash.substring(SHA512_PREFIX.length());
+                        int options = value.indexOf('?');
+                        if (options >= 0) {
+                            value = value.substring(0, options);
+                        }
+                        return new Integrity("SHA-512", Base64.getDecoder().decode(value));
+                    }
                 }
+            }
+            if (dist.shasum() != null && !dist.shasum().isBlank()) {
+                return new Integrity("SHA-1", HexFormat.of().parseHex(dist.shasum().trim()));
+            }
+            return null;
+        }
 
-            } finally {
-                connection.disconnect();
+        MessageDigest newDigest() {
+            try {
+                return MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
             }
-            FileUtil.forceMoveAtomic(tempFile, localFileName);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
         }
+
+        boolean matches(byte[] actual) {
+            return MessageDigest.isEqual(expected, actual);
+        }
+
+        private static final String SHA512_PREFIX = "sha512-";
     }
 }
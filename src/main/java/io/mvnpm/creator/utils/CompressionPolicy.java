@@ -0,0 +1,91 @@
+package io.mvnpm.creator.utils;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/**
+ * Decides if an archive entry is worth deflating. Content that is already compressed (fonts, images, archives)
+ * hardly gets smaller, so it is STORED instead of spending CPU on it.
+ */
+public final class CompressionPolicy {
+
+    private CompressionPolicy() {
+
+    }
+
+    /**
+     * By name only, for when the content is not at hand yet
+     */
+    public static int methodFor(String name) {
+        return isCompressedByName(name) ? ZipEntry.STORED : ZipEntry.DEFLATED;
+    }
+
+    /**
+     * By name, else by probing the start of the content
+     *
+     * @param head the first bytes of the content (or all of it), only the first {@link #PROBE_SIZE} are looked at
+     */
+    public static int methodFor(String name, byte[] head, int length) {
+        if (isCompressedByName(name) || isIncompressible(head, Math.min(length, PROBE_SIZE))) {
+            return ZipEntry.STORED;
+        }
+        return ZipEntry.DEFLATED;
+    }
+
+    public static boolean isCompressedByName(String name) {
+        String lowerCase = name.toLowerCase(Locale.ROOT);
+        for (String extension : COMPRESSED_EXTENSIONS) {
+            if (lowerCase.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Shannon entropy of the bytes, close to 8 bits per byte means there is nothing left to compress
+     */
+    static boolean isIncompressible(byte[] bytes, int length) {
+        if (length < MIN_PROBE_SIZE) {
+            return false;
+        }
+        int[] counts = new int[256];
+        for (int i = 0; i < length; i++) {
+            counts[bytes[i] & 0xff]++;
+        }
+        double entropy = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                double p = (double) count / length;
+                entropy -= p * Math.log(p);
+            }
+        }
+        return entropy / Math.log(2) >= ENTROPY_THRESHOLD;
+    }
+
+    /**
+     * Set what a STORED entry needs up front when the output can not seek back
+     */
+    public static <E extends ZipEntry> E stored(E entry, byte[] contents) {
+        CRC32 crc = new CRC32();
+        crc.update(contents);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(contents.length);
+        entry.setCompressedSize(contents.length);
+        entry.setCrc(crc.getValue());
+        return entry;
+    }
+
+    public static final int PROBE_SIZE = 4096;
+    // Below this the histogram says little, and the entry is small anyway
+    private static final int MIN_PROBE_SIZE = 512;
+    private static final double ENTROPY_THRESHOLD = 7.5;
+
+    private static final List<String> COMPRESSED_EXTENSIONS = List.of(
+            ".woff2", ".woff",
+            ".png", ".jpg", ".jpeg", ".gif", ".webp", ".avif",
+            ".mp3", ".mp4", ".webm", ".ogg",
+            ".gz", ".tgz", ".br", ".zst", ".xz", ".bz2", ".zip", ".jar");
+}
@@ -0,0 +1,431 @@
+package io.mvnpm.creator.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+
+/**
+ * Bounded pools of {@link Deflater}s, {@link Inflater}s and copy buffers, shared by everything that reads or
+ * writes archives. The native zlib memory of a deflater or inflater is otherwise only freed when it is ended or
+ * garbage collected, so creating one per file or entry grows the resident memory of the pod.
+ *
+ * Borrow with try-with-resources, closing the {@link Lease} gives it back. When the pool is empty a new one is
+ * created, when it is full the returned one is ended. The pools hold up to one deflater and inflater per core.
+ */
+public final class CompressionPool {
+
+    private static final CompressionPool SHARED = new CompressionPool(Runtime.getRuntime().availableProcessors());
+
+    private final Pool<Deflater> deflaters;
+    private final Pool<Inflater> inflaters;
+    private final Pool<byte[]> buffers;
+
+    CompressionPool(int perCore) {
+        this.deflaters = new Pool<>("deflater", perCore, () -> new Deflater(Deflater.DEFAULT_COMPRESSION, true),
+                Deflater::reset, Deflater::end);
+        this.inflaters = new Pool<>("inflater", perCore, () -> new Inflater(true), Inflater::reset, Inflater::end);
+        // A copy often is nested in another one (an entry of a tarball being read)
+        this.buffers = new Pool<>("buffer", perCore * 2, () -> new byte[BUFFER_SIZE], b -> {
+        }, b -> {
+        });
+    }
+
+    public static CompressionPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return a deflater for raw deflate data (default level, no zlib wrapper), as in zip entries
+     */
+    public Lease<Deflater> deflater() {
+        return deflaters.borrow();
+    }
+
+    /**
+     * @return an inflater for raw deflate data (no zlib wrapper)
+     */
+    public Lease<Inflater> inflater() {
+        return inflaters.borrow();
+    }
+
+    /**
+     * @return a copy buffer of {@link #BUFFER_SIZE} bytes
+     */
+    public Lease<byte[]> buffer() {
+        return buffers.borrow();
+    }
+
+    /**
+     * Reads gzip data with a pooled inflater, that is given back when the stream is closed
+     */
+    public InputStream gzipInput(InputStream in) throws IOException {
+        return new GzipInput(in, inflater());
+    }
+
+    /**
+     * Writes gzip data with a pooled deflater, that is given back when the stream is closed.
+     * The header has no time, so the same input gives the same bytes.
+     */
+    public DeflaterOutputStream gzipOutput(OutputStream out) throws IOException {
+        return new GzipOutput(out, deflater());
+    }
+
+    /**
+     * Pool hits and misses, the pooled and borrowed instances, and an estimate of the native memory they hold
+     */
+    public void bindTo(MeterRegistry registry) {
+        deflaters.bindTo(registry);
+        inflaters.bindTo(registry);
+        buffers.bindTo(registry);
+        Gauge.builder("mvnpm.compression.pool.native-memory", this,
+                p -> p.deflaters.live() * DEFLATER_NATIVE_BYTES + p.inflaters.live() * INFLATER_NATIVE_BYTES)
+                .baseUnit(BaseUnits.BYTES)
+                .description("Estimated zlib memory held by pooled and borrowed deflaters and inflaters")
+                .register(registry);
+    }
+
+    long hits(String type) {
+        return pool(type).hits.get();
+    }
+
+    long misses(String type) {
+        return pool(type).misses.get();
+    }
+
+    int idle(String type) {
+        return pool(type).idle.size();
+    }
+
+    private Pool<?> pool(String type) {
+        return switch (type) {
+            case "deflater" -> deflaters;
+            case "inflater" -> inflaters;
+            default -> buffers;
+        };
+    }
+
+    /**
+     * A borrowed instance, closing it gives it back to the pool
+     */
+    public static final class Lease<T> implements AutoCloseable {
+
+        private final Pool<T> pool;
+        private T value;
+
+        private Lease(Pool<T> pool, T value) {
+            this.pool = pool;
+            this.value = value;
+        }
+
+        public T get() {
+            if (value == null) {
+                throw new IllegalStateException("Already given back to the " + pool.type + " pool");
+            }
+            return value;
+        }
+
+        @Override
+        public void close() {
+            if (value != null) {
+                pool.giveBack(value);
+                value = null;
+            }
+        }
+    }
+
+    private static final class Pool<T> {
+
+        private final String type;
+        private final BlockingQueue<T> idle;
+        private final Supplier<T> factory;
+        private final Consumer<T> reset;
+        private final Consumer<T> dispose;
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong borrowed = new AtomicLong();
+
+        private Pool(String type, int capacity, Supplier<T> factory, Consumer<T> reset, Consumer<T> dispose) {
+            this.type = type;
+            this.idle = new ArrayBlockingQueue<>(Math.max(1, capacity));
+            this.factory = factory;
+            this.reset = reset;
+            this.dispose = dispose;
+        }
+
+        private Lease<T> borrow() {
+            T value = idle.poll();
+            if (value == null) {
+                misses.incrementAndGet();
+                value = factory.get();
+            } else {
+                hits.incrementAndGet();
+            }
+            borrowed.incrementAndGet();
+            return new Lease<>(this, value);
+        }
+
+        private void giveBack(T value) {
+            borrowed.decrementAndGet();
+            reset.accept(value);
+            if (!idle.offer(value)) {
+                dispose.accept(value);
+            }
+        }
+
+        private long live() {
+            return idle.size() + borrowed.get();
+        }
+
+        private void bindTo(MeterRegistry registry) {
+            FunctionCounter.builder("mvnpm.compression.pool", hits, AtomicLong::get)
+                    .tags("type", type, "result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("mvnpm.compression.pool", misses, AtomicLong::get)
+                    .tags("type", type, "result", "miss")
+                    .register(registry);
+            Gauge.builder("mvnpm.compression.pool.idle", idle, BlockingQueue::size)
+                    .tag("type", type)
+                    .register(registry);
+            Gauge.builder("mvnpm.compression.pool.borrowed", borrowed, AtomicLong::get)
+                    .tag("type", type)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Gzip of one or more members (as npm packs tarballs, or concatenated gzip files), read until the end of the
+     * input. Checks the crc and size in the trailer of each member, anything else than a member after it is rejected.
+     */
+    private static final class GzipInput extends InflaterInputStream {
+
+        private final Lease<Inflater> lease;
+        private final CRC32 crc = new CRC32();
+        private boolean eos = false;
+        private boolean closed = false;
+
+        private GzipInput(InputStream in, Lease<Inflater> lease) throws IOException {
+            super(in, lease.get(), BUFFER_SIZE);
+            this.lease = lease;
+            try {
+                if (!readHeader(in)) {
+                    throw new EOFException("Unexpected end of gzip header");
+                }
+            } catch (IOException | RuntimeException e) {
+                lease.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (eos) {
+                return -1;
+            }
+            int n = super.read(b, off, len);
+            if (n == -1) {
+                if (readTrailer()) {
+                    eos = true;
+                    return -1;
+                }
+                // The next member
+                return read(b, off, len);
+            } else {
+                crc.update(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return eos ? 0 : super.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                try {
+                    // Does not end the inflater, it was given to the constructor
+                    super.close();
+                } finally {
+                    lease.close();
+                }
+            }
+        }
+
+        /**
+         * @return true at the end of the input, false when another member follows (its header is read then)
+         */
+        private boolean readTrailer() throws IOException {
+            byte[] trailer = new byte[8];
+            // The inflater may have read (part of) the trailer, and what follows it, into the buffer already
+            int remaining = Math.min(inf.getRemaining(), trailer.length);
+            System.arraycopy(buf, len - inf.getRemaining(), trailer, 0, remaining);
+            if (in.readNBytes(trailer, remaining, trailer.length - remaining) != trailer.length - remaining) {
+                throw new EOFException("Unexpected end of gzip trailer");
+            }
+            if (littleEndian(trailer, 0) != crc.getValue()) {
+                throw new ZipException("Corrupt gzip trailer, wrong crc");
+            }
+            if (littleEndian(trailer, 4) != (inf.getBytesWritten() & 0xffffffffL)) {
+                throw new ZipException("Corrupt gzip trailer, wrong size");
+            }
+            int buffered = inf.getRemaining() - remaining;
+            ByteArrayInputStream bufferedInput = new ByteArrayInputStream(buf, len - buffered, buffered);
+            if (!readHeader(new SequenceInputStream(bufferedInput, in))) {
+                return true;
+            }
+            crc.reset();
+            inf.reset();
+            // The rest of the buffer is the start of the next member's data
+            int left = bufferedInput.available();
+            if (left > 0) {
+                inf.setInput(buf, len - left, left);
+            }
+            return false;
+        }
+
+        /**
+         * @return false when the input ends before the header
+         */
+        private static boolean readHeader(InputStream in) throws IOException {
+            byte[] header = in.readNBytes(10);
+            if (header.length == 0) {
+                return false;
+            }
+            if (header.length >= 2 && ((header[0] & 0xff) != 0x1f || (header[1] & 0xff) != 0x8b)) {
+                throw new ZipException("Not in gzip format");
+            }
+            if (header.length != 10) {
+                throw new EOFException("Unexpected end of gzip header");
+            }
+            if (header[2] != Deflater.DEFLATED) {
+                throw new ZipException("Unsupported gzip compression method " + header[2]);
+            }
+            int flags = header[3] & 0xff;
+            if ((flags & FEXTRA) != 0) {
+                byte[] length = readFully(in, 2);
+                readFully(in, (length[0] & 0xff) | (length[1] & 0xff) << 8);
+            }
+            if ((flags & FNAME) != 0) {
+                skipString(in);
+            }
+            if ((flags & FCOMMENT) != 0) {
+                skipString(in);
+            }
+            if ((flags & FHCRC) != 0) {
+                readFully(in, 2);
+            }
+            return true;
+        }
+
+        private static void skipString(InputStream in) throws IOException {
+            int b;
+            do {
+                b = in.read();
+                if (b == -1) {
+                    throw new EOFException("Unexpected end of gzip header");
+                }
+            } while (b != 0);
+        }
+
+        private static byte[] readFully(InputStream in, int length) throws IOException {
+            byte[] bytes = in.readNBytes(length);
+            if (bytes.length != length) {
+                throw new EOFException("Unexpected end of gzip header");
+            }
+            return bytes;
+        }
+
+        private static long littleEndian(byte[] b, int off) {
+            return (b[off] & 0xffL) | (b[off + 1] & 0xffL) << 8 | (b[off + 2] & 0xffL) << 16 | (b[off + 3] & 0xffL) << 24;
+        }
+    }
+
+    private static final class GzipOutput extends DeflaterOutputStream {
+
+        private final Lease<Deflater> lease;
+        private final CRC32 crc = new CRC32();
+        private boolean trailerWritten = false;
+        private boolean closed = false;
+
+        private GzipOutput(OutputStream out, Lease<Deflater> lease) throws IOException {
+            super(out, lease.get(), BUFFER_SIZE);
+            this.lease = lease;
+            try {
+                out.write(HEADER);
+            } catch (IOException | RuntimeException e) {
+                lease.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            crc.update(b, off, len);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            super.finish();
+            if (!trailerWritten) {
+                trailerWritten = true;
+                byte[] trailer = new byte[8];
+                littleEndian(trailer, 0, crc.getValue());
+                littleEndian(trailer, 4, def.getBytesRead());
+                out.write(trailer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                try {
+                    // Does not end the deflater, it was given to the constructor
+                    super.close();
+                } finally {
+                    lease.close();
+                }
+            }
+        }
+
+        private static void littleEndian(byte[] b, int off, long value) {
+            for (int i = 0; i < 4; i++) {
+                b[off + i] = (byte) (value >> (8 * i));
+            }
+        }
+    }
+
+    public static final int BUFFER_SIZE = 64 * 1024;
+    // Rough zlib allocations at the default level and window: the deflate window, hash chains and pending buffer,
+    // and the inflate window
+    private static final long DEFLATER_NATIVE_BYTES = 268 * 1024;
+    private static final long INFLATER_NATIVE_BYTES = 40 * 1024;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    private static final int FHCRC = 2;
+    // No time, no extra flags, unknown OS
+    private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+}
@@ -0,0 +1,18 @@
+package io.mvnpm.creator.utils;
+
+import jakarta.inject.Singleton;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Binds the metrics of the shared {@link CompressionPool}, the registry picks up every MeterBinder bean
+ */
+@Singleton
+public class CompressionPoolMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CompressionPool.shared().bindTo(registry);
+    }
+}
@@ -16,6 +16,7 @@ import java.security.SecureRandom;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Optional;
 
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.StreamingOutput;
@@ -45,11 +46,11 @@ public final class FileUtil {
 
     public static StreamingOutput toStreamingOutput(Path filePath) {
         return outputStream -> {
-            try (InputStream fileStream = Files.newInputStream(filePath)) {
-                byte[] buffer = new byte[8192]; // 8 KB chunks
+            try (InputStream fileStream = Files.newInputStream(filePath);
+                    CompressionPool.Lease<byte[]> buffer = CompressionPool.shared().buffer()) {
                 int bytesRead;
-                while ((bytesRead = fileStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
+                while ((bytesRead = fileStream.read(buffer.get())) != -1) {
+                    outputStream.write(buffer.get(), 0, bytesRead);
                     outputStream.flush();
                 }
             } catch (NoSuchFileException e) {
@@ -60,6 +61,29 @@ public final class FileUtil {
         };
     }
 
+    public static long size(Path filePath) {
+        try {
+            return Files.size(filePath);
+        } catch (NoSuchFileException e) {
+            throw new WebApplicationException("File was moved or deleted", 410);
+        } catch (IOException e) {
+            throw new WebApplicationException("Error streaming file", 500);
+        }
+    }
+
+    /**
+     * The sha1 of a file as written by {@link #createSha1(Path)}, without reading the file itself.
+     */
+    public static Optional<String> readSha1(Path forFile) {
+        Path sha1File = Paths.get(forFile.toString() + Constants.DOT_SHA1);
+        try {
+            String sha1 = Files.readString(sha1File).trim();
+            return sha1.isEmpty() ? Optional.empty() : Optional.of(sha1);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
     public static Path createSha1(Path forFile) {
         return FileUtil.createSha1(forFile, false);
     }
@@ -183,6 +207,16 @@ public final class FileUtil {
         }
     }
 
+    public static FileTime getLastModifiedTime(Path filePath) {
+        try {
+            return Files.getLastModifiedTime(filePath);
+        } catch (NoSuchFileException e) {
+            throw new WebApplicationException("File was moved or deleted", 410);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     public static boolean isOlderThanTimeout(Path p, int timeoutMinutes) {
         try {
             FileTime t = Files.getLastModifiedTime(p);
@@ -199,10 +233,11 @@ public final class FileUtil {
     private static byte[] getMessageDigest(InputStream inputStream, String algorithm)
             throws NoSuchAlgorithmException, IOException {
         MessageDigest md = MessageDigest.getInstance(algorithm);
-        byte[] buffer = new byte[4096];
-        int bytesRead;
-        while ((bytesRead = inputStream.read(buffer)) != -1) {
-            md.update(buffer, 0, bytesRead);
+        try (CompressionPool.Lease<byte[]> buffer = CompressionPool.shared().buffer()) {
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer.get())) != -1) {
+                md.update(buffer.get(), 0, bytesRead);
+            }
         }
 
         return md.digest();
@@ -1,13 +1,11 @@
 package io.mvnpm.creator.utils;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 import jakarta.enterprise.context.ApplicationScoped;
-import jakarta.inject.Inject;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.mvnpm.Constants;
 import io.mvnpm.importmap.ImportsDataBinding;
@@ -18,28 +16,25 @@ import io.quarkus.logging.Log;
 @ApplicationScoped
 public class ImportMapUtil {
 
-    @Inject
-    ObjectMapper objectMapper;
-
-    private static final String PACKAGE_JSON = "package.json";
+    public static final String PACKAGE_JSON = "package.json";
 
     public byte[] createImportMap(Map<String, byte[]> packageJsonFiles) throws IOException {
-        Map<String, io.mvnpm.npm.model.Package> packageJsonObjects = new HashMap<>();
+        // In the order of the tar, the first one is the main package when there is no root package.json
+        Map<String, io.mvnpm.npm.model.Package> packageJsonObjects = new LinkedHashMap<>();
 
         byte[] mainPackageJson = packageJsonFiles.remove(PACKAGE_JSON);
         Package mainPackageObject = null;
         if (mainPackageJson != null) {
-            mainPackageObject = objectMapper.readValue(mainPackageJson, io.mvnpm.npm.model.Package.class);
+            mainPackageObject = readPackageJson(PACKAGE_JSON, mainPackageJson);
         }
 
         for (Map.Entry<String, byte[]> packageJsonFile : packageJsonFiles.entrySet()) {
             String path = packageJsonFile.getKey();
             byte[] content = packageJsonFile.getValue();
             if (content != null) {
-                try {
-                    packageJsonObjects.put(path, objectMapper.readValue(content, io.mvnpm.npm.model.Package.class));
-                } catch (IOException ex) {
-                    Log.error(ex);
+                Package packageJsonObject = readPackageJson(path, content);
+                if (packageJsonObject != null) {
+                    packageJsonObjects.put(path, packageJsonObject);
                 }
             }
         }
@@ -47,10 +42,32 @@ public class ImportMapUtil {
         return createImportMap(mainPackageObject, packageJsonObjects);
     }
 
+    /**
+     * Only what the import map needs, see {@link PackageJsonReader}. Small enough to keep while the tar is read.
+     *
+     * @param path of the package.json in the package
+     * @return null when a nested package.json can not be read, the root one must be readable
+     */
+    public Package readPackageJson(String path, byte[] content) throws IOException {
+        if (path.equals(PACKAGE_JSON)) {
+            return PackageJsonReader.read(content);
+        }
+        try {
+            return PackageJsonReader.read(content);
+        } catch (IOException ex) {
+            Log.error(ex);
+            return null;
+        }
+    }
+
+    /**
+     * @param mainPackage the root package.json, can be null
+     * @param otherPackages the nested package.json files by path, in the order of the tar
+     */
     public byte[] createImportMap(io.mvnpm.npm.model.Package mainPackage,
             Map<String, io.mvnpm.npm.model.Package> otherPackages) {
 
-        Map<String, String> v = new HashMap<>();
+        Map<String, String> v = new TreeMap<>();
 
         if (mainPackage != null) {
             String root = getImportMapRoot(mainPackage);
@@ -91,7 +108,7 @@ public class ImportMapUtil {
         String root = getImportMapRoot(p);
 
         String module = getModule(p);
-        Map<String, String> v = new HashMap<>();
+        Map<String, String> v = new TreeMap<>();
 
         v.put(p.name().npmFullName, root + module);
         v.put(p.name().npmFullName + Constants.SLASH, root + getModuleRoot(module));
@@ -0,0 +1,110 @@
+package io.mvnpm.creator.utils;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import io.mvnpm.npm.model.NameParser;
+import io.mvnpm.npm.model.Package;
+import io.mvnpm.npm.model.Repository;
+
+/**
+ * Reads only what the import map needs from a package.json: the name, version, module, main and repository
+ * directory. All other values are skipped without being bound, and the rest of the document is not read once
+ * all five are found. A package with many nested package.json files then costs little more than the tar read.
+ */
+public final class PackageJsonReader {
+
+    private PackageJsonReader() {
+
+    }
+
+    /**
+     * @return a package with only the name, version, module, main and repository directory, the ones
+     *         that are missing (or not a single value) are null
+     * @throws JsonParseException when it is not a json object
+     */
+    public static Package read(byte[] json) throws IOException {
+        String name = null;
+        String version = null;
+        String module = null;
+        String main = null;
+        String directory = null;
+        int found = 0;
+        try (JsonParser parser = JSON.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "A package.json must be a json object");
+            }
+            while (found != ALL && parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "name" -> {
+                        name = text(parser, value);
+                        found |= NAME;
+                    }
+                    case "version" -> {
+                        version = text(parser, value);
+                        found |= VERSION;
+                    }
+                    case "module" -> {
+                        module = text(parser, value);
+                        found |= MODULE;
+                    }
+                    case "main" -> {
+                        main = text(parser, value);
+                        found |= MAIN;
+                    }
+                    case "repository" -> {
+                        directory = directory(parser, value);
+                        found |= REPOSITORY;
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return new Package(null, name == null ? null : NameParser.fromNpmProject(name), version, null, null, null, null,
+                directory == null ? null : new Repository(null, null, directory), null, main, module, null, null, null,
+                null, null);
+    }
+
+    private static String text(JsonParser parser, JsonToken value) throws IOException {
+        if (value.isScalarValue()) {
+            return parser.getValueAsString();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    /**
+     * The repository can also be just the url, then there is no directory
+     */
+    private static String directory(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String directory = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken fieldValue = parser.nextToken();
+            if (field.equals("directory")) {
+                directory = text(parser, fieldValue);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return directory;
+    }
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final int NAME = 1;
+    private static final int VERSION = 2;
+    private static final int MODULE = 4;
+    private static final int MAIN = 8;
+    private static final int REPOSITORY = 16;
+    private static final int ALL = NAME | VERSION | MODULE | MAIN | REPOSITORY;
+}
@@ -0,0 +1,101 @@
+package io.mvnpm.creator.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.Properties;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+
+/**
+ * Helps to create archives that are the same bytes every time they are created from the same input, on any pod.
+ * Entries get a fixed time taken from the npm tarball, tar headers carry no owner or time of their own, and
+ * properties files have no date. Zip entries get no permissions at all.
+ */
+public final class Reproducible {
+
+    private Reproducible() {
+
+    }
+
+    /**
+     * The time of an npm package: the modification time of the first entry in its tarball. Recent npm versions
+     * normalize that to {@link #DEFAULT_TIME}, older tarballs have the time they were packed.
+     *
+     * @return {@link #DEFAULT_TIME} when there is no tarball, or its time can not be stored in a zip
+     */
+    public static Instant timeOf(Path tgz) {
+        if (tgz == null || !Files.exists(tgz)) {
+            return DEFAULT_TIME;
+        }
+        try (InputStream in = Files.newInputStream(tgz);
+                InputStream gzipIn = CompressionPool.shared().gzipInput(in);
+                TarArchiveInputStream tarIn = new TarArchiveInputStream(gzipIn)) {
+            TarArchiveEntry first = tarIn.getNextEntry();
+            if (first == null) {
+                return DEFAULT_TIME;
+            }
+            Instant time = first.getModTime().toInstant();
+            if (time.isBefore(MIN_ZIP_TIME) || time.isAfter(MAX_ZIP_TIME)) {
+                return DEFAULT_TIME;
+            }
+            return time;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Error while reading the time of " + tgz, ex);
+        }
+    }
+
+    /**
+     * Zip entries keep the local (DOS) time, this gives the millis that show as the UTC time in any time zone
+     */
+    public static long zipTime(Instant time) {
+        return LocalDateTime.ofInstant(time, ZoneOffset.UTC).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * A tar entry for a regular file, without the user running the pod or the current time in it
+     */
+    public static TarArchiveEntry tarEntry(String name, long size, Instant time) {
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(size);
+        entry.setModTime(Date.from(time));
+        entry.setMode(FILE_MODE);
+        entry.setIds(0, 0);
+        entry.setNames("", "");
+        return entry;
+    }
+
+    /**
+     * Like {@link Properties#store(java.io.OutputStream, String)} (entries sorted by key), without the date comment
+     */
+    public static byte[] properties(Properties properties, String comment) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            properties.store(out, comment);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        // The date always is the line after the comment
+        String stored = out.toString(StandardCharsets.ISO_8859_1);
+        int dateStart = stored.indexOf('\n') + 1;
+        int dateEnd = stored.indexOf('\n', dateStart) + 1;
+        return (stored.substring(0, dateStart) + stored.substring(dateEnd)).getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    // The time npm gives every entry it packs, used when there is nothing better
+    public static final Instant DEFAULT_TIME = Instant.parse("1985-10-26T08:15:00Z");
+    private static final Instant MIN_ZIP_TIME = Instant.parse("1980-01-01T00:00:00Z");
+    private static final Instant MAX_ZIP_TIME = Instant.parse("2107-12-31T23:59:58Z");
+    // -rw-r--r--
+    private static final int FILE_MODE = 0100644;
+}
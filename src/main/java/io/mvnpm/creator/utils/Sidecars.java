@@ -0,0 +1,236 @@
+package io.mvnpm.creator.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.bouncycastle.bcpg.ArmoredOutputStream;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.util.ArmoredOutputStreamFactory;
+
+import io.mvnpm.Constants;
+
+/**
+ * The hashes (sha1, md5, sha256 and sha512) and the detached signature of a file, computed in one pass over its bytes:
+ * either while the file is written (see {@link #tee(OutputStream)}) or by reading it once (see {@link #update(Path)}).
+ */
+public final class Sidecars {
+
+    private final Path file;
+    private final MessageDigest sha1;
+    private final MessageDigest md5;
+    private final MessageDigest sha256;
+    private final MessageDigest sha512;
+    private final EncryptionStream signer;
+    private long size = 0;
+
+    private Sidecars(Path file, PGPSecretKeyRing secretKeyRing) {
+        this.file = file;
+        this.sha1 = newDigest(Constants.SHA1);
+        this.md5 = newDigest(Constants.MD5);
+        this.sha256 = newDigest("SHA-256");
+        this.sha512 = newDigest("SHA-512");
+        this.signer = secretKeyRing == null ? null : newSigner(secretKeyRing);
+    }
+
+    /**
+     * @param secretKeyRing to sign the file with, or null to only hash it
+     */
+    public static Sidecars of(Path file, PGPSecretKeyRing secretKeyRing) {
+        return new Sidecars(file, secretKeyRing);
+    }
+
+    /**
+     * Create the sidecars that are missing for an existing file, reading the file at most once.
+     *
+     * @return the sidecar files (also the ones that already existed)
+     */
+    public static List<Path> createFor(Path file, PGPSecretKeyRing secretKeyRing) {
+        Sidecars sidecars = of(file, secretKeyRing);
+        if (!sidecars.missing()) {
+            return sidecars.paths();
+        }
+        sidecars.update(file);
+        return sidecars.write();
+    }
+
+    /**
+     * Read a file once through the hashes, for a file that was not written through {@link #tee(OutputStream)}
+     */
+    public void update(Path file) {
+        try (InputStream in = Files.newInputStream(file);
+                CompressionPool.Lease<byte[]> buffer = CompressionPool.shared().buffer()) {
+            int read;
+            while ((read = in.read(buffer.get())) != -1) {
+                update(buffer.get(), 0, read);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * @return a stream that writes to the given stream, and computes the sidecars on the way
+     */
+    public OutputStream tee(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                update(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                update(b, off, len);
+            }
+        };
+    }
+
+    public void update(byte[] bytes, int offset, int length) {
+        sha1.update(bytes, offset, length);
+        md5.update(bytes, offset, length);
+        sha256.update(bytes, offset, length);
+        sha512.update(bytes, offset, length);
+        if (signer != null) {
+            try {
+                signer.write(bytes, offset, length);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        size += length;
+    }
+
+    public void update(ByteBuffer bytes) {
+        if (bytes.hasArray()) {
+            update(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        } else {
+            byte[] copy = new byte[bytes.remaining()];
+            bytes.duplicate().get(copy);
+            update(copy, 0, copy.length);
+        }
+    }
+
+    /**
+     * @return how many bytes went through
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Write the sidecars that do not exist yet next to the file. The signature gets hashes of its own.
+     */
+    public List<Path> write() {
+        writeIfAbsent(Constants.DOT_SHA1, HexFormat.of().formatHex(sha1.digest()));
+        writeIfAbsent(Constants.DOT_MD5, String.format("%032x", new BigInteger(1, md5.digest())));
+        writeIfAbsent(Constants.DOT_SHA256, HexFormat.of().formatHex(sha256.digest()));
+        writeIfAbsent(Constants.DOT_SHA512, HexFormat.of().formatHex(sha512.digest()));
+        if (signer != null) {
+            Path asc = sidecar(Constants.DOT_ASC);
+            if (!Files.exists(asc)) {
+                FileUtil.writeAtomic(asc, sign());
+            }
+            Sidecars.createFor(asc, null);
+        }
+        return paths();
+    }
+
+    private boolean missing() {
+        for (Path sidecar : paths()) {
+            if (!Files.exists(sidecar)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Path> paths() {
+        List<Path> paths = new ArrayList<>();
+        for (String hash : HASHES) {
+            paths.add(sidecar(hash));
+        }
+        if (signer != null) {
+            Path asc = sidecar(Constants.DOT_ASC);
+            paths.add(asc);
+            for (String hash : HASHES) {
+                paths.add(Paths.get(asc + hash));
+            }
+        }
+        return paths;
+    }
+
+    private Path sidecar(String extension) {
+        return Paths.get(file.toString() + extension);
+    }
+
+    private void writeIfAbsent(String extension, String content) {
+        Path sidecar = sidecar(extension);
+        if (!Files.exists(sidecar)) {
+            FileUtil.writeAtomic(sidecar, content);
+        }
+    }
+
+    private byte[] sign() {
+        try {
+            signer.close();
+            ByteArrayOutputStream asc = new ByteArrayOutputStream();
+            try (ArmoredOutputStream armored = ArmoredOutputStreamFactory.get(asc)) {
+                for (PGPSignature signature : signer.getResult().getDetachedSignatures().flatten()) {
+                    signature.encode(armored);
+                }
+            }
+            return asc.toByteArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Error while signing: '%s'".formatted(file), ex);
+        }
+    }
+
+    private static EncryptionStream newSigner(PGPSecretKeyRing secretKeyRing) {
+        try {
+            SigningOptions signingOptions = SigningOptions.get()
+                    .addDetachedSignature(SecretKeyRingProtector.unprotectedKeys(), secretKeyRing,
+                            DocumentSignatureType.BINARY_DOCUMENT);
+            // Detached, so the data itself goes nowhere
+            return PGPainless.encryptAndOrSign()
+                    .onOutputStream(OutputStream.nullOutputStream())
+                    .withOptions(ProducerOptions.sign(signingOptions).setAsciiArmor(false));
+        } catch (PGPException | IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final List<String> HASHES = List.of(Constants.DOT_SHA1, Constants.DOT_MD5, Constants.DOT_SHA256,
+            Constants.DOT_SHA512);
+}
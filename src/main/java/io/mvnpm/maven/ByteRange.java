@@ -0,0 +1,121 @@
+package io.mvnpm.maven;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.StreamingOutput;
+
+/**
+ * A satisfiable byte range of a file, as requested with a HTTP Range header
+ */
+public record ByteRange(long start, long end) {
+
+    public long length() {
+        return end - start + 1;
+    }
+
+    public String toContentRange(long size) {
+        return BYTES + " " + start + "-" + end + "/" + size;
+    }
+
+    public static String unsatisfiedContentRange(long size) {
+        return BYTES + " */" + size;
+    }
+
+    /**
+     * Parse a Range header against a file size.
+     * Empty when the header should be ignored (absent, not in bytes, malformed or too many ranges),
+     * an empty list when none of the ranges can be satisfied (416).
+     */
+    public static Optional<List<ByteRange>> parse(String header, long size) {
+        if (header == null || !header.startsWith(BYTES + "=")) {
+            return Optional.empty();
+        }
+        String[] specs = header.substring(BYTES.length() + 1).split(",");
+        if (specs.length > MAX_RANGES) {
+            return Optional.empty();
+        }
+        List<ByteRange> ranges = new ArrayList<>();
+        for (String spec : specs) {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return Optional.empty();
+            }
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            try {
+                if (first.isEmpty()) {
+                    // Suffix range: the last n bytes
+                    if (last.isEmpty()) {
+                        return Optional.empty();
+                    }
+                    long suffix = Long.parseLong(last);
+                    if (suffix > 0 && size > 0) {
+                        ranges.add(new ByteRange(Math.max(0, size - suffix), size - 1));
+                    }
+                } else {
+                    long start = Long.parseLong(first);
+                    long end = last.isEmpty() ? size - 1 : Long.parseLong(last);
+                    if (start < 0 || end < start) {
+                        return Optional.empty();
+                    }
+                    if (start < size) {
+                        ranges.add(new ByteRange(start, Math.min(end, size - 1)));
+                    }
+                }
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(ranges);
+    }
+
+    /**
+     * Stream several ranges of a file as multipart/byteranges, reading each range at its position in the file.
+     */
+    public static StreamingOutput toMultipartOutput(Path filePath, List<ByteRange> ranges, long size, String boundary) {
+        return outputStream -> {
+            try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(outputStream);
+                for (ByteRange range : ranges) {
+                    outputStream.write(("--" + boundary + CRLF
+                            + "Content-Type: application/octet-stream" + CRLF
+                            + "Content-Range: " + range.toContentRange(size) + CRLF
+                            + CRLF).getBytes(StandardCharsets.US_ASCII));
+                    long position = range.start();
+                    long remaining = range.length();
+                    while (remaining > 0) {
+                        long transferred = channel.transferTo(position, remaining, target);
+                        if (transferred <= 0) {
+                            throw new IOException("Unexpected end of file " + filePath);
+                        }
+                        position += transferred;
+                        remaining -= transferred;
+                    }
+                    outputStream.write(CRLF.getBytes(StandardCharsets.US_ASCII));
+                }
+                outputStream.write(("--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII));
+            } catch (NoSuchFileException e) {
+                throw new WebApplicationException("File was moved or deleted", 410);
+            } catch (IOException e) {
+                throw new WebApplicationException("Error streaming file", 500);
+            }
+        };
+    }
+
+    public static final String BYTES = "bytes";
+    private static final String CRLF = "\r\n";
+    // More ranges than this is not a resuming client, serve the whole file instead
+    private static final int MAX_RANGES = 16;
+}
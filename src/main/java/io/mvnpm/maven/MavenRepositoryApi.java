@@ -1,9 +1,19 @@
 package io.mvnpm.maven;
 
+import static io.mvnpm.Constants.HEADER_ACCEPT_RANGES;
 import static io.mvnpm.Constants.HEADER_CACHE_CONTROL;
 import static io.mvnpm.Constants.HEADER_CACHE_CONTROL_IMMUTABLE;
-
+import static io.mvnpm.Constants.HEADER_CONTENT_RANGE;
+import static io.mvnpm.Constants.HEADER_IF_RANGE;
+import static io.mvnpm.Constants.HEADER_RANGE;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
@@ -11,11 +21,16 @@ import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.StreamingOutput;
 
 import org.jboss.resteasy.reactive.NoCache;
+import org.jboss.resteasy.reactive.PathPart;
 
 import io.mvnpm.Constants;
 import io.mvnpm.creator.FileType;
@@ -57,6 +72,12 @@ public class MavenRepositoryApi {
     @Inject
     PackageCreator packageCreator;
 
+    @Context
+    Request request;
+
+    @Context
+    HttpHeaders headers;
+
     @GET
     @Path("/org/mvnpm/{ga : (.+)?}/maven-metadata.xml")
     @NoCache
@@ -64,8 +85,7 @@ public class MavenRepositoryApi {
     public Response getMavenMetadata(@PathParam("ga") String ga) {
         Name name = UrlPathParser.parseMavenMetaDataXml(ga);
         try {
-            StreamingOutput streamingOutput = FileUtil.toStreamingOutput(metadataService.getMetadataXml(name));
-            return Response.ok(streamingOutput).build();
+            return okOrNotModified(metadataService.getMetadataXml(name)).build();
         } catch (WebApplicationException wae) {
             return wae.getResponse();
         } catch (Throwable t) {
@@ -143,6 +163,22 @@ public class MavenRepositoryApi {
         return resolveAndStream(nv, FileType.pom, Optional.of(Constants.DOT_MD5), mavenRepositoryService::getMd5);
     }
 
+    @GET
+    @Path("/org/mvnpm/{gavt : (.+)?}.pom.sha256")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getPomSha256(@PathParam("gavt") String gavt) {
+        NameVersion nv = UrlPathParser.parseMavenFile(gavt + ".pom.sha256");
+        return resolveAndStream(nv, FileType.pom, Optional.of(Constants.DOT_SHA256), mavenRepositoryService::getSha256);
+    }
+
+    @GET
+    @Path("/org/mvnpm/{gavt : (.+)?}.pom.sha512")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getPomSha512(@PathParam("gavt") String gavt) {
+        NameVersion nv = UrlPathParser.parseMavenFile(gavt + ".pom.sha512");
+        return resolveAndStream(nv, FileType.pom, Optional.of(Constants.DOT_SHA512), mavenRepositoryService::getSha512);
+    }
+
     @GET
     @Path("/org/mvnpm/{gavt : (.+)?}.pom.asc")
     @Produces(MediaType.TEXT_PLAIN)
@@ -175,6 +211,22 @@ public class MavenRepositoryApi {
         return resolveAndStream(nv, FileType.jar, Optional.of(Constants.DOT_MD5), mavenRepositoryService::getMd5);
     }
 
+    @GET
+    @Path("/org/mvnpm/{gavt : (.+)?}.jar.sha256")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getJarSha256(@PathParam("gavt") String gavt) {
+        NameVersion nv = UrlPathParser.parseMavenFile(gavt);
+        return resolveAndStream(nv, FileType.jar, Optional.of(Constants.DOT_SHA256), mavenRepositoryService::getSha256);
+    }
+
+    @GET
+    @Path("/org/mvnpm/{gavt : (.+)?}.jar.sha512")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getJarSha512(@PathParam("gavt") String gavt) {
+        NameVersion nv = UrlPathParser.parseMavenFile(gavt);
+        return resolveAndStream(nv, FileType.jar, Optional.of(Constants.DOT_SHA512), mavenRepositoryService::getSha512);
+    }
+
     @GET
     @Path("/org/mvnpm/{gavt : (.+)?}.jar.asc")
     @Produces(MediaType.TEXT_PLAIN)
@@ -207,6 +259,22 @@ public class MavenRepositoryApi {
         return resolveAndStream(nv, FileType.source, Optional.of(Constants.DOT_MD5), mavenRepositoryService::getMd5);
     }
 
+    @GET
+    @Path("/org/mvnpm/{gavt : (.+)?}-sources.jar.sha256")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getSourcesJarSha256(@PathParam("gavt") String gavt) {
+        NameVersion nv = UrlPathParser.parseMavenFile(gavt);
+        return resolveAndStream(nv, FileType.source, Optional.of(Constants.DOT_SHA256), mavenRepositoryService::getSha256);
+    }
+
+    @GET
+    @Path("/org/mvnpm/{gavt : (.+)?}-sources.jar.sha512")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getSourcesJarSha512(@PathParam("gavt") String gavt) {
+        NameVersion nv = UrlPathParser.parseMavenFile(gavt);
+        return resolveAndStream(nv, FileType.source, Optional.of(Constants.DOT_SHA512), mavenRepositoryService::getSha512);
+    }
+
     @GET
     @Path("/org/mvnpm/{gavt : (.+)?}-sources.jar.asc")
     @Produces(MediaType.TEXT_PLAIN)
@@ -239,6 +307,22 @@ public class MavenRepositoryApi {
         return resolveAndStream(nv, FileType.javadoc, Optional.of(Constants.DOT_MD5), mavenRepositoryService::getMd5);
     }
 
+    @GET
+    @Path("/org/mvnpm/{gavt : (.+)?}-javadoc.jar.sha256")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getJavadocJarSha256(@PathParam("gavt") String gavt) {
+        NameVersion nv = UrlPathParser.parseMavenFile(gavt);
+        return resolveAndStream(nv, FileType.javadoc, Optional.of(Constants.DOT_SHA256), mavenRepositoryService::getSha256);
+    }
+
+    @GET
+    @Path("/org/mvnpm/{gavt : (.+)?}-javadoc.jar.sha512")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getJavadocJarSha512(@PathParam("gavt") String gavt) {
+        NameVersion nv = UrlPathParser.parseMavenFile(gavt);
+        return resolveAndStream(nv, FileType.javadoc, Optional.of(Constants.DOT_SHA512), mavenRepositoryService::getSha512);
+    }
+
     @GET
     @Path("/org/mvnpm/{gavt : (.+)?}-javadoc.jar.asc")
     @Produces(MediaType.TEXT_PLAIN)
@@ -271,6 +355,22 @@ public class MavenRepositoryApi {
         return resolveAndStream(nv, FileType.tgz, Optional.of(Constants.DOT_MD5), mavenRepositoryService::getMd5);
     }
 
+    @GET
+    @Path("/org/mvnpm/{gavt : (.+)?}.tgz.sha256")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getTgzSha256(@PathParam("gavt") String gavt) {
+        NameVersion nv = UrlPathParser.parseMavenFile(gavt);
+        return resolveAndStream(nv, FileType.tgz, Optional.of(Constants.DOT_SHA256), mavenRepositoryService::getSha256);
+    }
+
+    @GET
+    @Path("/org/mvnpm/{gavt : (.+)?}.tgz.sha512")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getTgzSha512(@PathParam("gavt") String gavt) {
+        NameVersion nv = UrlPathParser.parseMavenFile(gavt);
+        return resolveAndStream(nv, FileType.tgz, Optional.of(Constants.DOT_SHA512), mavenRepositoryService::getSha512);
+    }
+
     @GET
     @Path("/org/mvnpm/{gavt : (.+)?}.tgz.asc")
     @Produces(MediaType.TEXT_PLAIN)
@@ -310,9 +410,72 @@ public class MavenRepositoryApi {
     }
 
     private Response streamPath(java.nio.file.Path path) {
-        StreamingOutput streamingOutput = FileUtil.toStreamingOutput(path);
-        return Response.ok(streamingOutput)
+        return okOrNotModified(path)
                 .header(HEADER_CACHE_CONTROL, HEADER_CACHE_CONTROL_IMMUTABLE)
                 .build();
     }
+
+    /**
+     * Validators come from the sha1 sidecar and the file mtime, so a revalidation (304) never opens the file itself.
+     * A Range request (still matching If-Range) is served as 206 from the file position, never re-creating the file.
+     */
+    private Response.ResponseBuilder okOrNotModified(java.nio.file.Path path) {
+        Date lastModified = new Date(FileUtil.getLastModifiedTime(path).toMillis());
+        EntityTag etag = FileUtil.readSha1(path).map(EntityTag::new).orElse(null);
+        Response.ResponseBuilder notModified = etag == null
+                ? request.evaluatePreconditions(lastModified)
+                : request.evaluatePreconditions(lastModified, etag);
+        if (notModified != null) {
+            return notModified;
+        }
+        long size = FileUtil.size(path);
+        Optional<List<ByteRange>> ranges = isRangeApplicable(etag, lastModified)
+                ? ByteRange.parse(headers.getHeaderString(HEADER_RANGE), size)
+                : Optional.empty();
+        Response.ResponseBuilder builder;
+        if (ranges.isEmpty()) {
+            // Served zero-copy (sendfile) with its Content-Length
+            builder = Response.ok(new PathPart(path, 0, size));
+        } else if (ranges.get().isEmpty()) {
+            builder = Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HEADER_CONTENT_RANGE, ByteRange.unsatisfiedContentRange(size));
+        } else if (ranges.get().size() == 1) {
+            ByteRange range = ranges.get().get(0);
+            builder = Response.status(Response.Status.PARTIAL_CONTENT)
+                    .entity(new PathPart(path, range.start(), range.length()))
+                    .header(HEADER_CONTENT_RANGE, range.toContentRange(size));
+        } else {
+            String boundary = UUID.randomUUID().toString();
+            builder = Response.status(Response.Status.PARTIAL_CONTENT)
+                    .entity(ByteRange.toMultipartOutput(path, ranges.get(), size, boundary))
+                    .type("multipart/byteranges; boundary=" + boundary);
+        }
+        return builder
+                .header(HEADER_ACCEPT_RANGES, ByteRange.BYTES)
+                .lastModified(lastModified)
+                .tag(etag);
+    }
+
+    /**
+     * If-Range only lets the Range through when the validator still matches (strong comparison)
+     */
+    private boolean isRangeApplicable(EntityTag etag, Date lastModified) {
+        String ifRange = headers.getHeaderString(HEADER_IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("W/")) {
+            return false;
+        }
+        if (ifRange.startsWith("\"")) {
+            return etag != null && ifRange.equals("\"" + etag.getValue() + "\"");
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return date.toEpochSecond() == lastModified.getTime() / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
 }
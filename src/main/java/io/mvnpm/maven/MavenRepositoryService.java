@@ -185,6 +185,42 @@ public class MavenRepositoryService {
         }
     }
 
+    public Path getSha256(String groupId, String artifactId, String version, FileType type) {
+        Name name = NameParser.fromMavenGA(groupId, artifactId);
+        return getSha256(name, version, type);
+    }
+
+    public Path getSha256(Name name, String version, FileType type) {
+        if (version.equalsIgnoreCase(Constants.LATEST)) {
+            String latestVersion = getLatestVersion(name);
+            return getSha256(name, latestVersion, type);
+        } else {
+            if (name.isInternal()) {
+                return compositeService.getSha256Path(name, version, type);
+            } else {
+                return packageCreator.getSha256FromCacheOrCreate(type, name, version);
+            }
+        }
+    }
+
+    public Path getSha512(String groupId, String artifactId, String version, FileType type) {
+        Name name = NameParser.fromMavenGA(groupId, artifactId);
+        return getSha512(name, version, type);
+    }
+
+    public Path getSha512(Name name, String version, FileType type) {
+        if (version.equalsIgnoreCase(Constants.LATEST)) {
+            String latestVersion = getLatestVersion(name);
+            return getSha512(name, latestVersion, type);
+        } else {
+            if (name.isInternal()) {
+                return compositeService.getSha512Path(name, version, type);
+            } else {
+                return packageCreator.getSha512FromCacheOrCreate(type, name, version);
+            }
+        }
+    }
+
     public Path getAsc(String groupId, String artifactId, String version, FileType type) {
         Name name = NameParser.fromMavenGA(groupId, artifactId);
         return getAsc(name, version, type);
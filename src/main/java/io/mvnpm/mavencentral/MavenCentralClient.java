@@ -54,9 +54,10 @@ public interface MavenCentralClient {
             @QueryParam("version") String version);
 
     static class BundleUploadForm {
+        // A file part is streamed from disk, the bundle is never in memory
         @FormParam("bundle")
         @PartType(MediaType.APPLICATION_OCTET_STREAM)
-        public byte[] bundle;
+        public java.nio.file.Path bundle;
     }
 
     static enum PublishingType {
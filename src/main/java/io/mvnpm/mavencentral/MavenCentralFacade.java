@@ -2,8 +2,11 @@ package io.mvnpm.mavencentral;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.core.Response;
@@ -11,6 +14,10 @@ import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
 import io.mvnpm.error.ErrorHandlingService;
 import io.mvnpm.mavencentral.exceptions.StatusCheckException;
 import io.mvnpm.mavencentral.exceptions.UploadFailedException;
@@ -43,6 +50,17 @@ public class MavenCentralFacade {
     @ConfigProperty(name = "mvnpm.mavencentral.autorelease")
     boolean autorelease;
 
+    @Inject
+    MeterRegistry meterRegistry;
+
+    // Bytes of the bundles being uploaded right now
+    private final AtomicLong uploading = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        meterRegistry.gauge("mvnpm.central.upload.in-flight", uploading);
+    }
+
     public boolean isInCentral(String groupId, String artifactId, String version) {
         try {
             if (authorization.isPresent()) {
@@ -66,24 +84,41 @@ public class MavenCentralFacade {
 
     public String upload(Path path) throws UploadFailedException {
         try {
-            Log.debug("\tUploading " + path + "...");
-
             if (authorization.isPresent()) {
                 String a = "Bearer " + authorization.get();
 
                 MavenCentralClient.BundleUploadForm form = new MavenCentralClient.BundleUploadForm();
-                form.bundle = Files.readAllBytes(path);
+                form.bundle = path;
 
                 MavenCentralClient.PublishingType publishingType = MavenCentralClient.PublishingType.USER_MANAGED;
                 if (autorelease)
                     publishingType = MavenCentralClient.PublishingType.AUTOMATIC;
 
-                Response uploadResponse = mavenCentralClient.uploadBundle(a, path.getFileName().toString(),
-                        publishingType, form);
+                long size = Files.size(path);
+                Log.infof("Uploading bundle %s (%d KB)...", path, size / 1024);
+                uploading.addAndGet(size);
+                long start = System.nanoTime();
+                Response uploadResponse;
+                try {
+                    uploadResponse = mavenCentralClient.uploadBundle(a, path.getFileName().toString(),
+                            publishingType, form);
+                } finally {
+                    uploading.addAndGet(-size);
+                }
+                Duration took = Duration.ofNanos(System.nanoTime() - start);
+                Timer.builder("mvnpm.central.upload")
+                        .tag("status", String.valueOf(uploadResponse.getStatus()))
+                        .register(meterRegistry)
+                        .record(took);
+                DistributionSummary.builder("mvnpm.central.upload.size")
+                        .baseUnit(BaseUnits.BYTES)
+                        .register(meterRegistry)
+                        .record(size);
 
                 if (uploadResponse.getStatus() == 201) {
                     String releaseId = uploadResponse.readEntity(String.class);
-                    Log.info("Uploaded bundle " + path + " to releaseId [" + releaseId + "]");
+                    Log.infof("Uploaded bundle %s to releaseId [%s] in %d ms (%d KB/s)", path, releaseId,
+                            took.toMillis(), size * 1000 / 1024 / Math.max(1, took.toMillis()));
                     return releaseId;
                 } else {
                     throw new UploadFailedException("HTTP Response status [" + uploadResponse.getStatus() + "] for " + path);
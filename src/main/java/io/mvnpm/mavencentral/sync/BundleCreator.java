@@ -1,8 +1,5 @@
 package io.mvnpm.mavencentral.sync;
 
-import java.io.BufferedOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
@@ -10,14 +7,18 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
+
 import io.mvnpm.Constants;
 import io.mvnpm.creator.PackageFileLocator;
+import io.mvnpm.creator.utils.CompressionPolicy;
+import io.mvnpm.creator.utils.CompressionPool;
 import io.mvnpm.creator.utils.FileUtil;
 import io.mvnpm.mavencentral.exceptions.MissingFilesForBundleException;
 import io.quarkus.logging.Log;
@@ -38,6 +39,43 @@ public class BundleCreator {
         return buildBundle(groupId, artifactId, version);
     }
 
+    /**
+     * A component (one groupId:artifactId:version) that is ready to go in a bundle
+     *
+     * @throws MissingFilesForBundleException when not all files are there yet
+     */
+    public Component component(String groupId, String artifactId, String version)
+            throws MissingFilesForBundleException {
+        List<Path> files = getFiles(groupId, artifactId, version);
+        long size = 0;
+        try {
+            for (Path file : files) {
+                size += Files.size(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Component(groupId, artifactId, version, files, size);
+    }
+
+    /**
+     * Bundle many components in one deployment. Unlike the bundle of one component this is not kept, the caller
+     * deletes it once uploaded.
+     */
+    public Path bundle(List<Component> components) {
+        Log.debug("====== mvnpm: Nexus Bundler (" + components.size() + " components) ======");
+        Component first = components.get(0);
+        Path parent = packageFileLocator.getLocalDirectory(first.groupId(), first.artifactId(), first.version());
+        try {
+            Path bundlePath = Files.createTempFile(parent, first.artifactId() + Constants.HYPHEN + first.version()
+                    + "-batch-", "-bundle.jar");
+            writeBundle(bundlePath, components);
+            return bundlePath;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     private Path buildBundle(String groupId, String artifactId, String version) throws MissingFilesForBundleException {
         List<Path> files = getFiles(groupId, artifactId, version);
 
@@ -49,41 +87,42 @@ public class BundleCreator {
 
         if (!Files.exists(bundlePath)) {
             final Path temp = FileUtil.getTempFilePathFor(bundlePath);
-            File bundleFile = temp.toFile();
-            try (FileOutputStream fos = new FileOutputStream(bundleFile);
-                    BufferedOutputStream bos = new BufferedOutputStream(fos);
-                    ZipOutputStream zos = new ZipOutputStream(bos)) {
+            try {
+                writeBundle(temp, List.of(new Component(groupId, artifactId, version, files, 0)));
+                FileUtil.forceMoveAtomic(temp, bundlePath);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return bundlePath;
+    }
 
-                String basePath = groupId.replace('.', '/') + "/" + artifactId + "/" + version + "/";
+    private void writeBundle(Path bundlePath, List<Component> components) throws IOException {
+        // Seekable, so STORED entries need no crc up front
+        try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(bundlePath);
+                CompressionPool.Lease<byte[]> buffer = CompressionPool.shared().buffer()) {
+            for (Component component : components) {
+                String basePath = component.groupId().replace('.', '/') + "/" + component.artifactId() + "/"
+                        + component.version() + "/";
 
-                for (Path path : files) {
+                for (Path path : component.files()) {
                     String zipEntryName = basePath + path.getFileName();
                     Log.debug("\tAdding to bundle: " + zipEntryName);
 
-                    ZipEntry zipEntry = new ZipEntry(zipEntryName);
-                    zos.putNextEntry(zipEntry);
-                    try (InputStream fileInputStream = Files.newInputStream(path)) {
-                        int bytesRead;
-                        byte[] buffer = new byte[4096];
-                        while ((bytesRead = fileInputStream.read(buffer)) != -1) {
-                            zos.write(buffer, 0, bytesRead);
-                        }
+                    // The jars are compressed already
+                    ZipArchiveEntry zipEntry = new ZipArchiveEntry(zipEntryName);
+                    zipEntry.setMethod(CompressionPolicy.methodFor(zipEntryName));
+                    zipEntry.setSize(Files.size(path));
+                    zos.putArchiveEntry(zipEntry);
+                    try (InputStream in = Files.newInputStream(path)) {
+                        IOUtils.copyLarge(in, zos, buffer.get());
                     } catch (IOException e) {
                         throw new RuntimeException("Error streaming file content: " + path, e);
                     }
-                    zos.closeEntry();
+                    zos.closeArchiveEntry();
                 }
-
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
-            try {
-                FileUtil.forceMoveAtomic(temp, bundlePath);
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
             }
         }
-        return bundlePath;
     }
 
     private List<Path> getFiles(String groupId, String artifactId, String version) throws MissingFilesForBundleException {
@@ -100,8 +139,16 @@ public class BundleCreator {
             }
         }
 
-        if (notReady.isEmpty())
-            return fileNames;
+        if (notReady.isEmpty()) {
+            // Stronger hashes go along when they exist, packages created before them might not have them
+            List<Path> withOptional = new ArrayList<>(fileNames);
+            for (Path fileName : getOptionalFileNamesInBundle(parent, base)) {
+                if (Files.exists(fileName)) {
+                    withOptional.add(fileName);
+                }
+            }
+            return withOptional;
+        }
 
         throw new MissingFilesForBundleException(
                 "Some files (%s) are not available yet to build the bundle for '%s:%s:%s' (waiting for next batch)".formatted(
@@ -129,4 +176,21 @@ public class BundleCreator {
 
         return fileNames;
     }
+
+    private List<Path> getOptionalFileNamesInBundle(Path parent, String base) {
+        List<Path> fileNames = new ArrayList<>();
+        for (String artifact : List.of(Constants.DOT_POM, Constants.DOT_JAR, Constants.DASH_SOURCES_DOT_JAR,
+                Constants.DASH_JAVADOC_DOT_JAR)) {
+            fileNames.add(parent.resolve(base + artifact + Constants.DOT_SHA256));
+            fileNames.add(parent.resolve(base + artifact + Constants.DOT_SHA512));
+        }
+        return fileNames;
+    }
+
+    /**
+     * @param files the files of the component that go in the bundle
+     * @param size the size of those files
+     */
+    public record Component(String groupId, String artifactId, String version, List<Path> files, long size) {
+    }
 }
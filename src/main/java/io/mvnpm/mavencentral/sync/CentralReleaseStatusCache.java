@@ -0,0 +1,175 @@
+package io.mvnpm.mavencentral.sync;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CaffeineCache;
+import io.quarkus.vertx.ConsumeEvent;
+import io.smallrye.common.annotation.Blocking;
+
+/**
+ * In memory release status of GAVs, in front of the DB and Central lookups done on every artifact request.
+ * Released items never change, so they stay until evicted. Others can move on any pod, so they expire quickly.
+ * Stage changes on this pod are applied once committed, those on other pods through the {@link StageChangeListener}.
+ *
+ * Only a snapshot of the item is kept, every lookup gets its own (detached) copy of it. That copy only carries the
+ * release status, the sync API reads the whole item from the DB.
+ *
+ * A lookup takes the {@link #generation(Gav)} before loading the item and only caches it if no change was applied
+ * since, so a change committed while it was loading is never overwritten by the old stage.
+ */
+@ApplicationScoped
+public class CentralReleaseStatusCache {
+
+    @Inject
+    @CacheName("central-released-cache")
+    Cache releasedCache;
+
+    @Inject
+    @CacheName("central-unreleased-cache")
+    Cache unreleasedCache;
+
+    // Bumped before every invalidation, striped so it stays bounded
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    /**
+     * @return a copy of the cached item, or null if it needs to be looked up
+     */
+    public CentralSyncItem get(Gav gav, boolean startSync) {
+        ReleaseStatus released = getIfPresent(releasedCache, gav);
+        if (released != null) {
+            return released.toItem(gav);
+        }
+        ReleaseStatus unreleased = getIfPresent(unreleasedCache, gav);
+        if (unreleased == null || (startSync && unreleased.stage() == Stage.NONE)) {
+            // Not cached, or the lookup needs to start the sync
+            return null;
+        }
+        return unreleased.toItem(gav);
+    }
+
+    /**
+     * @return the generation to give to {@link #put(CentralSyncItem, long)} with what was loaded
+     */
+    public long generation(Gav gav) {
+        return generations.get(stripe(gav));
+    }
+
+    /**
+     * Cache what a lookup loaded, unless a change was applied since it took the generation
+     */
+    public void put(CentralSyncItem centralSyncItem, long generation) {
+        if (centralSyncItem == null) {
+            return;
+        }
+        Gav gav = toGav(centralSyncItem);
+        int stripe = stripe(gav);
+        if (generations.get(stripe) != generation) {
+            return;
+        }
+        put(centralSyncItem);
+        if (generations.get(stripe) != generation) {
+            // Changed while putting, whatever was put may be the old stage
+            remove(gav);
+        }
+    }
+
+    public void put(CentralSyncItem centralSyncItem) {
+        if (centralSyncItem == null) {
+            return;
+        }
+        Gav gav = toGav(centralSyncItem);
+        ReleaseStatus status = ReleaseStatus.of(centralSyncItem);
+        if (centralSyncItem.alreadyReleased()) {
+            releasedCache.as(CaffeineCache.class).put(gav, CompletableFuture.completedFuture(status));
+            unreleasedCache.as(CaffeineCache.class).invalidate(gav).await().indefinitely();
+        } else {
+            unreleasedCache.as(CaffeineCache.class).put(gav, CompletableFuture.completedFuture(status));
+        }
+    }
+
+    public void invalidate(Gav gav) {
+        generations.incrementAndGet(stripe(gav));
+        remove(gav);
+    }
+
+    /**
+     * Only once committed, a lookup running before that would cache the old stage again
+     */
+    void itemChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) CentralSyncItemService.ItemChange change) {
+        if (change.item() == null) {
+            invalidate(change.gav());
+        } else if (change.item().alreadyReleased()) {
+            generations.incrementAndGet(stripe(change.gav()));
+            put(change.item());
+        } else {
+            // Next lookup reloads it
+            invalidateUnreleased(change.gav());
+        }
+    }
+
+    /**
+     * A stage change on another pod, the next lookup reloads it
+     */
+    @ConsumeEvent(StageChangeListener.REMOTE_STAGE_CHANGE)
+    @Blocking
+    public void remoteStageChange(StageChangeListener.RemoteStageChange change) {
+        invalidateUnreleased(change.gav());
+    }
+
+    private void invalidateUnreleased(Gav gav) {
+        generations.incrementAndGet(stripe(gav));
+        unreleasedCache.invalidate(gav).await().indefinitely();
+    }
+
+    private void remove(Gav gav) {
+        releasedCache.invalidate(gav).await().indefinitely();
+        unreleasedCache.invalidate(gav).await().indefinitely();
+    }
+
+    private static int stripe(Gav gav) {
+        return Math.floorMod(gav.hashCode(), GENERATION_STRIPES);
+    }
+
+    private ReleaseStatus getIfPresent(Cache cache, Gav gav) {
+        CompletableFuture<ReleaseStatus> cached = cache.as(CaffeineCache.class).getIfPresent(gav);
+        return cached == null ? null : cached.getNow(null);
+    }
+
+    private Gav toGav(CentralSyncItem centralSyncItem) {
+        return new Gav(centralSyncItem.groupId, centralSyncItem.artifactId, centralSyncItem.version);
+    }
+
+    /**
+     * What is cached of an item, immutable so it can be shared between requests
+     */
+    record ReleaseStatus(Stage stage, LocalDateTime startTime, LocalDateTime stageChangeTime, String stagingRepoId) {
+
+        static ReleaseStatus of(CentralSyncItem centralSyncItem) {
+            return new ReleaseStatus(centralSyncItem.stage, centralSyncItem.startTime, centralSyncItem.stageChangeTime,
+                    centralSyncItem.stagingRepoId);
+        }
+
+        CentralSyncItem toItem(Gav gav) {
+            CentralSyncItem centralSyncItem = new CentralSyncItem();
+            centralSyncItem.groupId = gav.getGroupId();
+            centralSyncItem.artifactId = gav.getArtifactId();
+            centralSyncItem.version = gav.getVersion();
+            centralSyncItem.stage = stage;
+            centralSyncItem.startTime = startTime;
+            centralSyncItem.stageChangeTime = stageChangeTime;
+            centralSyncItem.stagingRepoId = stagingRepoId;
+            return centralSyncItem;
+        }
+    }
+
+    private static final int GENERATION_STRIPES = 1024;
+}
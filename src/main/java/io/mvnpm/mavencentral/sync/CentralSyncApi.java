@@ -5,7 +5,6 @@ import java.util.Set;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import jakarta.transaction.Transactional;
 import jakarta.websocket.OnClose;
 import jakarta.websocket.OnError;
 import jakarta.websocket.OnOpen;
@@ -85,7 +84,7 @@ public class CentralSyncApi {
     @Path("/info/{groupId}/{artifactId}")
     public CentralSyncItem getCentralSyncItem(@PathParam("groupId") String groupId, @PathParam("artifactId") String artifactId,
             @DefaultValue("latest") @QueryParam("version") String version) {
-        return centralSyncService.checkReleaseInDbAndCentral(groupId, artifactId, version, false);
+        return centralSyncService.getReleaseInDbAndCentral(groupId, artifactId, version, false);
     }
 
     @GET
@@ -94,7 +93,7 @@ public class CentralSyncApi {
     public CentralSyncItem requestFullSync(@PathParam("groupId") String groupId, @PathParam("artifactId") String artifactId,
             @DefaultValue("latest") @QueryParam("version") String version) {
         mavenRepositoryService.getPath(groupId, artifactId, version, FileType.jar);
-        return centralSyncService.checkReleaseInDbAndCentral(groupId, artifactId, version, true);
+        return centralSyncService.getReleaseInDbAndCentral(groupId, artifactId, version, true);
     }
 
     @GET
@@ -108,7 +107,7 @@ public class CentralSyncApi {
         }
 
         mavenRepositoryService.getPath(groupId, artifactId, version, FileType.jar);
-        final CentralSyncItem centralSyncItem = centralSyncService.checkReleaseInDbAndCentral(groupId, artifactId, version,
+        final CentralSyncItem centralSyncItem = centralSyncService.getReleaseInDbAndCentral(groupId, artifactId, version,
                 true);
         if (centralSyncItem.isInError()) {
             CentralSyncItem claimed = centralSyncItemService.claimForErrorRetry(
@@ -124,17 +123,14 @@ public class CentralSyncApi {
     @GET
     @NoCache
     @Path("/remove/{groupId}/{artifactId}")
-    @Transactional
     public CentralSyncItem remove(@PathParam("groupId") String groupId, @PathParam("artifactId") String artifactId,
             @DefaultValue("latest") @QueryParam("version") String version) {
 
         if (version.equalsIgnoreCase("latest")) {
             version = centralSyncService.getLatestVersion(groupId, artifactId);
         }
-        final CentralSyncItem centralSyncItem = centralSyncService.checkReleaseInDbAndCentral(groupId, artifactId, version,
-                false);
-        centralSyncItem.delete();
-        return centralSyncItem;
+        // Not through the release status cache, that only has a copy of the item
+        return centralSyncItemService.delete(new Gav(groupId, artifactId, version));
     }
 
     @GET
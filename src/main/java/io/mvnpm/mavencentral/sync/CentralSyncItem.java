@@ -36,6 +36,7 @@ public class CentralSyncItem extends PanacheEntityBase {
     public LocalDateTime stageChangeTime;
     public String stagingRepoId; // TODO: This should be renamed to releaseId
     public Stage stage;
+    public LocalDateTime retryAfter; // Not uploaded again before this, after a failed upload
 
     public boolean dependenciesChecked = false;
     public int creationAttempts = 0;
@@ -89,6 +90,14 @@ public class CentralSyncItem extends PanacheEntityBase {
         return find("#CentralSyncItem.findUploadedButNotReleased", uploadedButNotReleased).list();
     }
 
+    /**
+     * The components of a deployment in Central that are not released yet
+     */
+    public static List<CentralSyncItem> findUploadedButNotReleased(String releaseId) {
+        List<Stage> uploadedButNotReleased = Arrays.asList(Stage.UPLOADED, Stage.CLOSED, Stage.RELEASING);
+        return find("stagingRepoId = ?1 and stage in ?2", releaseId, uploadedButNotReleased).list();
+    }
+
     public boolean isInProgress() {
         return this.stage.equals(Stage.CLOSED)
                 || this.stage.equals(Stage.RELEASING)
@@ -1,9 +1,14 @@
 package io.mvnpm.mavencentral.sync;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
 import jakarta.inject.Inject;
 import jakarta.persistence.LockModeType;
 import jakarta.transaction.Transactional;
@@ -23,6 +28,9 @@ public class CentralSyncItemService {
     @Inject
     EventBus bus;
 
+    @Inject
+    Event<ItemChange> itemChanges;
+
     @Transactional
     public CentralSyncItem changeStage(CentralSyncItem centralSyncItem, Stage stage) {
         Gav gav = new Gav(centralSyncItem.groupId, centralSyncItem.artifactId, centralSyncItem.version);
@@ -45,10 +53,23 @@ public class CentralSyncItemService {
         if (stage == Stage.RELEASED) {
             SyncedPackage.createIfAbsent(centralSyncItem.groupId, centralSyncItem.artifactId);
         }
-        bus.publish("central-sync-item-stage-change", centralSyncItem);
+        if (StageChangeListener.isNotified(stage)) {
+            notifyOtherPods(gav, stage);
+        }
+        itemChanges.fire(new ItemChange(gav, centralSyncItem));
         return centralSyncItem;
     }
 
+    /**
+     * The stage change event only goes out once the change is committed, so whoever acts on it (on any thread)
+     * finds the item in its new stage
+     */
+    void publishStageChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) ItemChange change) {
+        if (change.item() != null) {
+            bus.publish("central-sync-item-stage-change", change.item());
+        }
+    }
+
     @Transactional
     public CentralSyncItem dependenciesChecked(CentralSyncItem centralSyncItem) {
         centralSyncItem = merge(centralSyncItem);
@@ -82,28 +103,171 @@ public class CentralSyncItemService {
         return Panache.getEntityManager().merge(centralSyncItem);
     }
 
+    /**
+     * Claim a free upload slot together with up to maxComponents items to upload in one deployment, in one
+     * transaction so a slot is never held without an item (or the other way around). The oldest items are taken,
+     * so a package and the dependency versions queued with it go together.
+     *
+     * @param slots how many uploads may run at the same time, over all pods
+     * @param lease how long the slot is held when it is not released (the pod went away)
+     * @return null when all slots are taken, or there is nothing to upload
+     */
     @Transactional
-    public CentralSyncItem claimNextForUpload() {
-        @SuppressWarnings("unchecked")
-        List<CentralSyncItem> candidates = Panache.getEntityManager()
+    public UploadClaim claimUploadSlot(int slots, Duration lease, int maxComponents) {
+        UploadSlot slot = UploadSlot.lockFree(slots);
+        if (slot == null) {
+            return null;
+        }
+        List<CentralSyncItem> items = lockNextInit(Math.max(1, maxComponents));
+        if (items.isEmpty()) {
+            return null;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        CentralSyncItem first = items.get(0);
+        Duration queueWait = first.stageChangeTime == null ? Duration.ZERO : Duration.between(first.stageChangeTime, now);
+        List<CentralSyncItem> claimed = new ArrayList<>(items.size());
+        for (CentralSyncItem item : items) {
+            claimed.add(markUploading(item, now));
+        }
+        slot.holder = first.toGavString();
+        slot.claimedAt = now;
+        slot.leaseUntil = now.plus(lease);
+        slot.persist();
+        Log.infof("[MULTI-POD] Upload slot %d claimed for %s (%d components)", slot.slot, first.toGavString(),
+                claimed.size());
+        return new UploadClaim(claimed, slot.slot, queueWait);
+    }
+
+    /**
+     * Extend the lease of the upload slot held for this item, while its upload runs
+     *
+     * @return false when the slot is not held for it anymore
+     */
+    @Transactional
+    public boolean renewUploadSlot(CentralSyncItem centralSyncItem, Duration lease) {
+        UploadSlot slot = UploadSlot.lockHeldBy(centralSyncItem.toGavString());
+        if (slot == null) {
+            return false;
+        }
+        slot.leaseUntil = LocalDateTime.now().plus(lease);
+        slot.persist();
+        return true;
+    }
+
+    /**
+     * Put an item claimed for upload back in the queue, without counting the claim as an upload attempt (it was not
+     * uploaded, e.g. it did not fit in the deployment)
+     */
+    @Transactional
+    public CentralSyncItem unclaimUpload(CentralSyncItem centralSyncItem) {
+        Gav gav = new Gav(centralSyncItem.groupId, centralSyncItem.artifactId, centralSyncItem.version);
+        CentralSyncItem locked = CentralSyncItem.findById(gav, LockModeType.PESSIMISTIC_WRITE);
+        if (locked == null || locked.stage != Stage.UPLOADING) {
+            return locked;
+        }
+        if (locked.uploadAttempts > 0) {
+            locked.uploadAttempts--;
+        }
+        return changeStage(locked, Stage.INIT);
+    }
+
+    /**
+     * Free the upload slot held for this item, if any
+     *
+     * @return the slot and how long it was held, null when no slot was held for it
+     */
+    @Transactional
+    public SlotRelease releaseUploadSlot(CentralSyncItem centralSyncItem) {
+        UploadSlot slot = UploadSlot.lockHeldBy(centralSyncItem.toGavString());
+        if (slot == null) {
+            return null;
+        }
+        Duration held = slot.claimedAt == null ? Duration.ZERO : Duration.between(slot.claimedAt, LocalDateTime.now());
+        slot.holder = null;
+        slot.claimedAt = null;
+        slot.leaseUntil = null;
+        slot.persist();
+        Log.debugf("[MULTI-POD] Upload slot %d released by %s", slot.slot, centralSyncItem.toGavString());
+        return new SlotRelease(slot.slot, held);
+    }
+
+    @Transactional
+    public void createUploadSlots(int slots) {
+        for (int slot = 0; slot < slots; slot++) {
+            UploadSlot.createIfAbsent(slot);
+        }
+    }
+
+    /**
+     * Postgres delivers it to the {@link StageChangeListener} of every pod once the transaction commits
+     */
+    private void notifyOtherPods(Gav gav, Stage stage) {
+        Panache.getEntityManager()
+                .createNativeQuery("SELECT pg_notify(:channel, :payload)")
+                .setParameter("channel", StageChangeListener.CHANNEL)
+                .setParameter("payload", StageChangeListener.payload(StageChangeListener.POD, stage, gav))
+                .getSingleResult();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<CentralSyncItem> lockNextInit(int limit) {
+        return Panache.getEntityManager()
                 .createNativeQuery(
-                        "SELECT * FROM centralsyncitem WHERE stage = :init "
-                                + "ORDER BY stagechangetime ASC LIMIT 1 FOR UPDATE SKIP LOCKED",
+                        "SELECT * FROM centralsyncitem WHERE stage = :init AND (retryafter IS NULL OR retryafter <= :now) "
+                                + "ORDER BY stagechangetime ASC LIMIT :limit FOR UPDATE SKIP LOCKED",
                         CentralSyncItem.class)
                 .setParameter("init", Stage.INIT.ordinal())
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("limit", limit)
                 .getResultList();
-        if (candidates.isEmpty()) {
-            return null;
-        }
-        CentralSyncItem item = candidates.get(0);
-        item.stage = Stage.UPLOADING;
-        item.stageChangeTime = LocalDateTime.now();
+    }
+
+    /**
+     * Through {@link #changeStage(CentralSyncItem, Stage)}, so the claim is published (and the cached status dropped)
+     * once committed, like any other stage change
+     */
+    private CentralSyncItem markUploading(CentralSyncItem item, LocalDateTime claimedAt) {
+        item.retryAfter = null;
         item.uploadAttempts++;
-        item.persist();
+        item = changeStage(item, Stage.UPLOADING);
+        // The same time as the slot, that tells the items it is held for (see UploadSlot#isHeldFor)
+        item.stageChangeTime = claimedAt;
         Log.infof("[MULTI-POD] Claimed for upload: %s (attempt %d)", item.toGavString(), item.uploadAttempts);
         return item;
     }
 
+    /**
+     * Items claimed for upload in one deployment, with the upload slot they hold
+     *
+     * @param queueWait how long the oldest item waited to be uploaded
+     */
+    public record UploadClaim(List<CentralSyncItem> items, int slot, Duration queueWait) {
+
+        /**
+         * @return the first (oldest) item, the slot is held in its name
+         */
+        public CentralSyncItem item() {
+            return items.get(0);
+        }
+    }
+
+    /**
+     * Fired within the transaction that changes the stage of an item, or deletes it. Observe it
+     * {@link jakarta.enterprise.event.TransactionPhase#AFTER_SUCCESS} to only act on what is committed.
+     *
+     * @param item the item as committed, null when it was deleted
+     */
+    public record ItemChange(Gav gav, CentralSyncItem item) {
+    }
+
+    /**
+     * An upload slot given back
+     *
+     * @param held how long the slot was held
+     */
+    public record SlotRelease(int slot, Duration held) {
+    }
+
     @Transactional
     public CentralSyncItem claimNextForErrorRetry() {
         @SuppressWarnings("unchecked")
@@ -152,8 +316,22 @@ public class CentralSyncItemService {
 
     @Transactional
     public void delete(CentralSyncItem centralSyncItem) {
-        centralSyncItem = merge(centralSyncItem);
-        centralSyncItem.delete();
+        delete(new Gav(centralSyncItem.groupId, centralSyncItem.artifactId, centralSyncItem.version));
+    }
+
+    /**
+     * Delete the item as it is in the DB, whatever copy of it the caller has (a cached one maybe)
+     *
+     * @return the deleted item, null when there was none
+     */
+    @Transactional
+    public CentralSyncItem delete(Gav gav) {
+        CentralSyncItem centralSyncItem = CentralSyncItem.findById(gav, LockModeType.PESSIMISTIC_WRITE);
+        if (centralSyncItem != null) {
+            centralSyncItem.delete();
+        }
+        itemChanges.fire(new ItemChange(gav, null));
+        return centralSyncItem;
     }
 
     @Transactional
@@ -1,11 +1,14 @@
 package io.mvnpm.mavencentral.sync;
 
 import java.nio.file.Path;
+import java.util.List;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 
+import org.apache.commons.io.FileUtils;
+
 import io.mvnpm.mavencentral.MavenCentralFacade;
 import io.mvnpm.mavencentral.exceptions.MissingFilesForBundleException;
 import io.mvnpm.mavencentral.exceptions.UploadFailedException;
@@ -33,12 +36,38 @@ public class CentralSyncService {
     @Inject
     CentralSyncItemService centralSyncItemService;
 
-    @Transactional
+    @Inject
+    CentralReleaseStatusCache centralReleaseStatusCache;
+
     public CentralSyncItem checkReleaseInDbAndCentral(String groupId, String artifactId, String version, boolean startSync) {
         if ("latest".equalsIgnoreCase(version)) {
             version = getLatestVersion(groupId, artifactId);
         }
+        Gav gav = new Gav(groupId, artifactId, version);
+        CentralSyncItem cached = centralReleaseStatusCache.get(gav, startSync);
+        if (cached != null) {
+            return cached;
+        }
+        // Taken before loading, a change committed meanwhile must not be overwritten by what was loaded
+        long generation = centralReleaseStatusCache.generation(gav);
+        CentralSyncItem centralSyncItem = loadReleaseInDbAndCentral(groupId, artifactId, version, startSync);
+        centralReleaseStatusCache.put(centralSyncItem, generation);
+        return centralSyncItem;
+    }
+
+    /**
+     * Always from the DB (and Central), with every field of the item. The release status cache only keeps what the
+     * artifact requests need, so the sync API reads the item itself.
+     */
+    public CentralSyncItem getReleaseInDbAndCentral(String groupId, String artifactId, String version, boolean startSync) {
+        if ("latest".equalsIgnoreCase(version)) {
+            version = getLatestVersion(groupId, artifactId);
+        }
+        return loadReleaseInDbAndCentral(groupId, artifactId, version, startSync);
+    }
 
+    @Transactional
+    CentralSyncItem loadReleaseInDbAndCentral(String groupId, String artifactId, String version, boolean startSync) {
         CentralSyncItem centralSyncItem = centralSyncItemService.findOrCreate(groupId, artifactId, version,
                 startSync ? Stage.PACKAGING : Stage.NONE);
 
@@ -113,6 +142,20 @@ public class CentralSyncService {
         return mavenCentralFacade.upload(bundlePath);
     }
 
+    /**
+     * Sync many components with central in one deployment
+     *
+     * @return the releaseId of the deployment, shared by all the components
+     */
+    public String sync(List<BundleCreator.Component> components) throws UploadFailedException {
+        Path bundlePath = bundleCreator.bundle(components);
+        try {
+            return mavenCentralFacade.upload(bundlePath);
+        } finally {
+            FileUtils.deleteQuietly(bundlePath.toFile());
+        }
+    }
+
     public String getLatestVersion(String groupId, String artifactId) {
         Name name = NameParser.fromMavenGA(groupId, artifactId);
         return getLatestVersion(name);
@@ -0,0 +1,179 @@
+package io.mvnpm.mavencentral.sync;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.logging.Log;
+import io.quarkus.vertx.ConsumeEvent;
+import io.smallrye.common.annotation.Blocking;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.core.eventbus.EventBus;
+
+/**
+ * Moves items through the sync stages as soon as they change stage, instead of waiting for the next run of a
+ * scheduler:
+ * - INIT: start the upload as soon as an upload slot is free, or when the retry delay is over
+ * - UPLOADED and CLOSED: follow the deployment in Central, checking more and more slowly while it validates
+ * - RELEASED: measure how long the sync took
+ *
+ * Stage changes are published once committed (see {@link CentralSyncItemService}), so they are acted on right away.
+ * Items queued by other pods arrive through the {@link StageChangeListener}.
+ *
+ * Delayed actions are Vert.x timers, so many of them cost little. They only live on this pod, the
+ * schedulers in {@link ContinuousSyncService} stay as safety sweeps for the ones lost with a pod.
+ */
+@ApplicationScoped
+public class CentralSyncStateMachine {
+
+    @Inject
+    ContinuousSyncService continuousSyncService;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    EventBus bus;
+
+    @Inject
+    Vertx vertx;
+
+    @ConfigProperty(name = "mvnpm.sync.status-check.delay", defaultValue = "15s")
+    Duration statusCheckDelay;
+
+    @ConfigProperty(name = "mvnpm.sync.status-check.max-delay", defaultValue = "5m")
+    Duration statusCheckMaxDelay;
+
+    // The deployments in Central being followed: the id of the timer of their next check, by releaseId
+    private final Map<String, Long> followed = new ConcurrentHashMap<>();
+
+    private final AtomicInteger pendingTimers = new AtomicInteger();
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("mvnpm.sync.timers.pending", pendingTimers, AtomicInteger::get)
+                .description("Delayed sync actions waiting for their timer")
+                .register(meterRegistry);
+    }
+
+    @ConsumeEvent("central-sync-item-stage-change")
+    @Blocking
+    public void onStageChange(CentralSyncItem centralSyncItem) {
+        switch (centralSyncItem.stage) {
+            case INIT -> queued(centralSyncItem);
+            case UPLOADED, CLOSED -> follow(centralSyncItem.stagingRepoId, 0);
+            case RELEASED -> released(centralSyncItem);
+            default -> {
+                // Packaging ends with the item queued (INIT), uploads are started when a slot is claimed
+            }
+        }
+    }
+
+    /**
+     * An item queued on another pod is uploaded by whichever pod has a free slot first
+     */
+    @ConsumeEvent(StageChangeListener.REMOTE_STAGE_CHANGE)
+    @Blocking
+    public void onRemoteStageChange(StageChangeListener.RemoteStageChange change) {
+        if (change.stage() == Stage.INIT) {
+            // Committed already, so no need to wait
+            continuousSyncService.fillUploadSlots();
+        }
+    }
+
+    private void queued(CentralSyncItem centralSyncItem) {
+        LocalDateTime retryAfter = centralSyncItem.retryAfter;
+        if (retryAfter != null && retryAfter.isAfter(LocalDateTime.now())) {
+            Duration delay = Duration.between(LocalDateTime.now(), retryAfter);
+            Log.debugf("Upload of %s retried in %ds", centralSyncItem.toGavString(), delay.toSeconds());
+            schedule(delay, FILL_UPLOAD_SLOTS, centralSyncItem.toGavString());
+        } else {
+            // The event is published once the stage change is committed, so it can be claimed right away
+            continuousSyncService.fillUploadSlots();
+        }
+    }
+
+    /**
+     * Check the deployment after a delay that doubles with every check, until it is released or failed
+     */
+    private void follow(String releaseId, int checks) {
+        if (releaseId == null || releaseId.isEmpty() || followed.containsKey(releaseId)) {
+            return;
+        }
+        Duration delay = statusCheckDelay(statusCheckDelay, statusCheckMaxDelay, checks);
+        long timerId = schedule(delay, CHECK_DEPLOYMENT, new DeploymentCheck(releaseId, checks));
+        if (followed.putIfAbsent(releaseId, timerId) != null) {
+            // Followed by another thread in the meantime
+            if (vertx.cancelTimer(timerId)) {
+                pendingTimers.decrementAndGet();
+            }
+        }
+    }
+
+    @ConsumeEvent(FILL_UPLOAD_SLOTS)
+    @Blocking
+    public void fillUploadSlots(String queuedGav) {
+        continuousSyncService.fillUploadSlots();
+    }
+
+    @ConsumeEvent(CHECK_DEPLOYMENT)
+    @Blocking
+    public void checkDeployment(DeploymentCheck check) {
+        String releaseId = check.releaseId();
+        int checks = check.checks();
+        followed.remove(releaseId);
+        List<CentralSyncItem> items = CentralSyncItem.findUploadedButNotReleased(releaseId);
+        if (items.isEmpty()) {
+            // Moved on already (by another pod or the safety sweep)
+            return;
+        }
+        Stage stage = continuousSyncService.checkDeployment(releaseId, items);
+        if (stage == null || stage == Stage.UPLOADED || stage == Stage.CLOSED) {
+            follow(releaseId, checks + 1);
+        }
+    }
+
+    private void released(CentralSyncItem centralSyncItem) {
+        if (centralSyncItem.startTime != null) {
+            Timer.builder("mvnpm.sync.latency")
+                    .description("Time from queueing a package version until it is released in Central")
+                    .register(meterRegistry)
+                    .record(Duration.between(centralSyncItem.startTime, LocalDateTime.now()));
+        }
+    }
+
+    private long schedule(Duration delay, String address, Object message) {
+        pendingTimers.incrementAndGet();
+        // The event loop only hands the action over to its (blocking) consumer
+        return vertx.setTimer(Math.max(1, delay.toMillis()), id -> {
+            pendingTimers.decrementAndGet();
+            bus.send(address, message);
+        });
+    }
+
+    static Duration statusCheckDelay(Duration delay, Duration maxDelay, int checks) {
+        Duration checkDelay = delay.multipliedBy(1L << Math.min(checks, 16));
+        return checkDelay.compareTo(maxDelay) > 0 ? maxDelay : checkDelay;
+    }
+
+    /**
+     * @param checks how many times the deployment was checked already
+     */
+    public record DeploymentCheck(String releaseId, int checks) {
+    }
+
+    private static final String FILL_UPLOAD_SLOTS = "central-sync-fill-upload-slots";
+    private static final String CHECK_DEPLOYMENT = "central-sync-check-deployment";
+}
@@ -8,9 +8,11 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Observes;
@@ -19,7 +21,12 @@ import jakarta.transaction.Transactional;
 import jakarta.ws.rs.WebApplicationException;
 
 import org.apache.commons.io.FileUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.mvnpm.creator.FileType;
 import io.mvnpm.creator.PackageCreator;
 import io.mvnpm.creator.PackageFileLocator;
@@ -36,6 +43,8 @@ import io.mvnpm.mavencentral.ReleaseStatus;
 import io.mvnpm.mavencentral.exceptions.MissingFilesForBundleException;
 import io.mvnpm.mavencentral.exceptions.StatusCheckException;
 import io.mvnpm.mavencentral.exceptions.UploadFailedException;
+import io.mvnpm.mavencentral.sync.CentralSyncItemService.SlotRelease;
+import io.mvnpm.mavencentral.sync.CentralSyncItemService.UploadClaim;
 import io.mvnpm.npm.NpmRegistryFacade;
 import io.mvnpm.npm.exceptions.GetPackageException;
 import io.mvnpm.npm.model.Name;
@@ -44,6 +53,7 @@ import io.mvnpm.npm.model.ProjectInfo;
 import io.mvnpm.version.InvalidVersionException;
 import io.quarkus.logging.Log;
 import io.quarkus.runtime.StartupEvent;
+import io.quarkus.runtime.configuration.MemorySize;
 import io.quarkus.scheduler.Scheduled;
 import io.quarkus.security.UnauthorizedException;
 import io.quarkus.vertx.ConsumeEvent;
@@ -95,6 +105,30 @@ public class ContinuousSyncService {
     @Inject
     io.vertx.mutiny.core.eventbus.EventBus bus;
 
+    @Inject
+    BundleCreator bundleCreator;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "mvnpm.upload.slots", defaultValue = "3")
+    int uploadSlots;
+
+    @ConfigProperty(name = "mvnpm.upload.slot-lease", defaultValue = "30m")
+    Duration uploadSlotLease;
+
+    @ConfigProperty(name = "mvnpm.upload.batch.max-components", defaultValue = "10")
+    int batchMaxComponents;
+
+    @ConfigProperty(name = "mvnpm.upload.batch.max-size", defaultValue = "256M")
+    MemorySize batchMaxSize;
+
+    @ConfigProperty(name = "mvnpm.upload.retry-delay", defaultValue = "30s")
+    Duration uploadRetryDelay;
+
+    // The uploads running on this pod, by the item the upload slot is held for
+    private final Map<String, CentralSyncItem> uploadsInProgress = new ConcurrentHashMap<>();
+
     @Scheduled(cron = "{mvnpm.checkerror.cron.expr}", concurrentExecution = SKIP)
     @RunOnVirtualThread
     public void checkError() {
@@ -114,6 +148,7 @@ public class ContinuousSyncService {
     /**
      * Check a batch of synced packages for updates using adaptive scheduling.
      * Replaces the old checkAll which loaded all rows into memory.
+     * Changed packages are normally picked up by the NpmChangesFollower, this is the fallback.
      */
     @Scheduled(every = "${mvnpm.check-all.every:10m}", concurrentExecution = SKIP)
     @RunOnVirtualThread
@@ -134,6 +169,18 @@ public class ContinuousSyncService {
         }
     }
 
+    /**
+     * Check a synced package now, because NPM reported a change.
+     * Cached NPM data is dropped first, as it would hide the change.
+     */
+    public void checkChanged(String groupId, String artifactId) {
+        Name name = NameParser.fromMavenGA(groupId, artifactId);
+        npmRegistryFacade.invalidateProjectInfo(name.npmFullName);
+        SyncedPackage pkg = new SyncedPackage(groupId, artifactId);
+        LocalDateTime nextCheck = checkAndComputeNextCheck(pkg);
+        updateNextCheck(pkg, nextCheck);
+    }
+
     @Transactional
     List<SyncedPackage> claimBatchToCheck(int batchSize) {
         LocalDateTime claimUntil = LocalDateTime.now().plusHours(1);
@@ -276,30 +323,48 @@ public class ContinuousSyncService {
     }
 
     /**
-     * This just check if there is an artifact being uploaded, and if not change the status and fire an event
+     * Safety sweep, uploads are started by the {@link CentralSyncStateMachine} when an item is queued and when an
+     * upload slot frees up. This catches the ones queued on a pod that went away.
      */
-    @Scheduled(every = "${mvnpm.next-upload.every:3m}", concurrentExecution = SKIP)
+    @Scheduled(every = "${mvnpm.next-upload.every:10m}", concurrentExecution = SKIP)
     @RunOnVirtualThread
     void nextToUploadStatusChange() {
-        if (isCurrentlyUploading()) {
-            Log.debug("Sync upload in progress");
-            return;
-        }
-        CentralSyncItem item = centralSyncItemService.claimNextForUpload();
-        if (item == null) {
-            Log.debug("Nothing in the queue to sync");
-            return;
-        }
-        // Check if already in Central (avoid duplicate upload)
-        if (centralSyncService.checkCentralStatusAndUpdateStageIfNeeded(item)) {
-            return; // Item moved to RELEASED inside the check
+        fillUploadSlots();
+    }
+
+    /**
+     * Start an upload for every free upload slot, as long as there is something in the queue.
+     * The slots are shared by all pods, so no more than mvnpm.upload.slots uploads run at the same time.
+     */
+    void fillUploadSlots() {
+        UploadClaim claim;
+        while ((claim = centralSyncItemService.claimUploadSlot(uploadSlots, uploadSlotLease,
+                batchMaxComponents)) != null) {
+            Timer.builder("mvnpm.central.upload.queue-wait")
+                    .description("Time from being queued for upload until an upload slot is free")
+                    .register(meterRegistry)
+                    .record(claim.queueWait());
+            if (claim.items().size() > 1) {
+                Log.debugf("Kicking off sync of %d components in upload slot %d...", claim.items().size(),
+                        claim.slot());
+                bus.publish("central-sync-upload-batch", claim);
+                continue;
+            }
+            CentralSyncItem item = claim.item();
+            // Check if already in Central (avoid duplicate upload)
+            if (centralSyncService.checkCentralStatusAndUpdateStageIfNeeded(item)) {
+                // Item moved to RELEASED inside the check
+                centralSyncItemService.releaseUploadSlot(item);
+                continue;
+            }
+            Log.debugf("Version [%s] of %s is NOT in central. Kicking off sync in upload slot %d...",
+                    item.version, item.toGavString(), claim.slot());
+            bus.publish("central-sync-upload", item);
         }
-        Log.debugf("Version [%s] of %s is NOT in central. Kicking off sync...",
-                item.version, item.toGavString());
-        bus.publish("central-sync-item-stage-change", item);
+        Log.debug("No upload slot free, or nothing in the queue to sync");
     }
 
-    @Scheduled(every = "${mvnpm.clean-release.every:3m}", concurrentExecution = SKIP)
+    @Scheduled(every = "${mvnpm.clean-release.every:10m}", concurrentExecution = SKIP)
     @RunOnVirtualThread
     void cleanCentralStatuses() {
         // Check if this is in central, and update the status
@@ -309,71 +374,146 @@ public class ContinuousSyncService {
         }
     }
 
-    @Scheduled(every = "${mvnpm.release.every:60s}", concurrentExecution = SKIP)
+    /**
+     * Safety sweep, the deployments uploaded by this pod are followed by the {@link CentralSyncStateMachine}.
+     * This catches the ones uploaded by a pod that went away, or before a restart.
+     */
+    @Scheduled(every = "${mvnpm.release.every:5m}", concurrentExecution = SKIP)
     @RunOnVirtualThread
     void processCentralStatuses() {
         List<CentralSyncItem> uploadedToCentral = CentralSyncItem.findUpdloadedButNotReleased();
         if (!uploadedToCentral.isEmpty()) {
-            Map<String, CentralSyncItem> uploadedToCentralMap = mapByReleaseId(uploadedToCentral);
-            if (!uploadedToCentralMap.isEmpty()) {
-
-                for (Map.Entry<String, CentralSyncItem> itemToCheck : uploadedToCentralMap.entrySet()) {
-                    CentralSyncItem uploadedItem = itemToCheck.getValue();
-                    String releaseId = itemToCheck.getKey();
-                    try {
-                        ReleaseStatus releaseStatus = mavenCentralFacade.status(uploadedItem, releaseId);
-                        switch (releaseStatus) {
-                            case PENDING:
-                            case VALIDATING:
-                                uploadedItem = centralSyncItemService.changeStage(uploadedItem, Stage.UPLOADED);
-                                break;
-                            case VALIDATED:
-                            case PUBLISHING:
-                                uploadedItem = centralSyncItemService.changeStage(uploadedItem, Stage.CLOSED);
-                                break;
-                            case PUBLISHED:
-                                uploadedItem = centralSyncItemService.changeStage(uploadedItem, Stage.RELEASED);
-                                break;
-                            case FAILED:
-                                uploadedItem = centralSyncItemService.changeStage(uploadedItem, Stage.ERROR);
-                                // TODO: Here we should get more details, and do a drop maybe ?
-                                break;
-                            default:
-                                throw new AssertionError();
-                        }
-                    } catch (StatusCheckException ex) {
-                        // Nothing really. We will catch this with the next one
-                        Log.warn("Could not get status for " + uploadedItem.toGavString() + " (release Id: " + releaseId + ")");
-                    }
-                }
+            Map<String, List<CentralSyncItem>> uploadedToCentralMap = mapByReleaseId(uploadedToCentral);
+            // One status check per deployment, a deployment can have many components
+            for (Map.Entry<String, List<CentralSyncItem>> itemsToCheck : uploadedToCentralMap.entrySet()) {
+                checkDeployment(itemsToCheck.getKey(), itemsToCheck.getValue());
             }
         }
     }
 
-    @ConsumeEvent("central-sync-item-stage-change")
+    /**
+     * Check the status of a deployment in Central, and move all its components to the matching stage
+     *
+     * @return the stage the components are in now, null when the status is not known
+     */
+    Stage checkDeployment(String releaseId, List<CentralSyncItem> items) {
+        CentralSyncItem uploadedItem = items.get(0);
+        try {
+            ReleaseStatus releaseStatus = mavenCentralFacade.status(uploadedItem, releaseId);
+            Stage stage;
+            switch (releaseStatus) {
+                case PENDING:
+                case VALIDATING:
+                    stage = Stage.UPLOADED;
+                    break;
+                case VALIDATED:
+                case PUBLISHING:
+                    stage = Stage.CLOSED;
+                    break;
+                case PUBLISHED:
+                    stage = Stage.RELEASED;
+                    break;
+                case FAILED:
+                    stage = Stage.ERROR;
+                    // TODO: Here we should get more details, and do a drop maybe ?
+                    break;
+                default:
+                    throw new AssertionError();
+            }
+            for (CentralSyncItem item : items) {
+                centralSyncItemService.changeStage(item, stage);
+            }
+            return stage;
+        } catch (StatusCheckException ex) {
+            // Nothing really. We will catch this with the next one
+            Log.warn("Could not get status for " + uploadedItem.toGavString() + " (release Id: " + releaseId + ")");
+            return null;
+        }
+    }
+
+    /**
+     * Upload a component claimed in an upload slot. Not on its stage change to UPLOADING, that is published for every
+     * component claimed, also the ones uploaded together in one deployment.
+     */
+    @ConsumeEvent("central-sync-upload")
     @Blocking
     public void processNextAction(CentralSyncItem centralSyncItem) {
         if (centralSyncItem.stage.equals(Stage.UPLOADING)) {
-            processNextUpload(centralSyncItem);
+            uploadsInProgress.put(centralSyncItem.toGavString(), centralSyncItem);
+            String result = "failed";
+            try {
+                result = processNextUpload(centralSyncItem) ? "uploaded" : "failed";
+            } finally {
+                uploadEnded(centralSyncItem, result);
+            }
         }
     }
 
-    private Map<String, CentralSyncItem> mapByReleaseId(List<CentralSyncItem> uploadedToCentral) {
-        Map<String, CentralSyncItem> mapByReleaseId = new HashMap<>();
+    /**
+     * Upload many components in one deployment, claimed together in one upload slot
+     */
+    @ConsumeEvent("central-sync-upload-batch")
+    @Blocking
+    public void processNextBatch(UploadClaim claim) {
+        uploadsInProgress.put(claim.item().toGavString(), claim.item());
+        String result = "failed";
+        try {
+            result = processBatchUpload(claim.items());
+        } finally {
+            uploadEnded(claim.item(), result);
+        }
+    }
+
+    private void uploadEnded(CentralSyncItem slotHolder, String result) {
+        uploadsInProgress.remove(slotHolder.toGavString());
+        SlotRelease release = centralSyncItemService.releaseUploadSlot(slotHolder);
+        if (release != null) {
+            recordSlot(release, result);
+            // The slot is free, so start the next upload now rather than on the next schedule
+            fillUploadSlots();
+        }
+    }
+
+    /**
+     * An upload can take longer than the lease of its slot (a deployment of many components), so the lease is renewed
+     * while the upload runs. Only the slot of a pod that went away runs out.
+     */
+    @Scheduled(every = "${mvnpm.upload.slot-lease.renew-every:5m}", concurrentExecution = SKIP)
+    @RunOnVirtualThread
+    void renewUploadSlots() {
+        for (CentralSyncItem slotHolder : uploadsInProgress.values()) {
+            if (!centralSyncItemService.renewUploadSlot(slotHolder, uploadSlotLease)) {
+                Log.warnf("[MULTI-POD] Upload slot of %s is not held anymore, while still uploading",
+                        slotHolder.toGavString());
+            }
+        }
+    }
+
+    private void recordSlot(SlotRelease release, String result) {
+        String slot = String.valueOf(release.slot());
+        Counter.builder("mvnpm.central.upload.slot")
+                .description("Uploads that ended in an upload slot")
+                .tag("slot", slot)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+        Timer.builder("mvnpm.central.upload.slot.busy")
+                .description("Time an upload slot was held for one upload")
+                .tag("slot", slot)
+                .register(meterRegistry)
+                .record(release.held());
+    }
+
+    private Map<String, List<CentralSyncItem>> mapByReleaseId(List<CentralSyncItem> uploadedToCentral) {
+        Map<String, List<CentralSyncItem>> mapByReleaseId = new HashMap<>();
         for (CentralSyncItem csi : uploadedToCentral) {
             if (csi.stagingRepoId != null && !csi.stagingRepoId.isEmpty()) {
-                mapByReleaseId.put(csi.stagingRepoId, csi);
+                mapByReleaseId.computeIfAbsent(csi.stagingRepoId, k -> new ArrayList<>()).add(csi);
             }
         }
         return mapByReleaseId;
     }
 
-    private boolean isCurrentlyUploading() {
-        // We only process one at a time, so first check that there is not another process in progress
-        long uploadingCount = CentralSyncItem.count("stage", Stage.UPLOADING);
-        return uploadingCount != 0;
-    }
-
     /**
      * Check for version updates, and if a new version is out, do a sync
      */
@@ -405,7 +545,10 @@ public class ContinuousSyncService {
         }
     }
 
-    private void processNextUpload(CentralSyncItem centralSyncItem) {
+    /**
+     * @return true when the bundle is in (or on its way to) Central
+     */
+    private boolean processNextUpload(CentralSyncItem centralSyncItem) {
         if (!centralSyncService.checkCentralStatusAndUpdateStageIfNeeded(centralSyncItem)) {
             // Ensure package files exist locally (may have been created on another pod)
             try {
@@ -413,12 +556,13 @@ public class ContinuousSyncService {
             } catch (PackageAlreadySyncedException e) {
                 Log.infof("Package already synced, marking as released: %s", centralSyncItem.toGavString());
                 centralSyncItemService.changeStage(centralSyncItem, Stage.RELEASED);
-                return;
+                return true;
             }
             try {
                 String releaseId = centralSyncService.sync(centralSyncItem);
                 centralSyncItem.stagingRepoId = releaseId;
                 centralSyncItem = centralSyncItemService.changeStage(centralSyncItem, Stage.UPLOADED);
+                return true;
             } catch (UploadFailedException exception) {
                 Log.warnf("Upload failed for '%s' because of: %s", centralSyncItem.toGavString(), exception.getMessage());
                 retryUpload(centralSyncItem, exception);
@@ -432,7 +576,80 @@ public class ContinuousSyncService {
                 throwable.printStackTrace();
                 retryUpload(centralSyncItem, throwable);
             }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Bundle the components that are ready in one deployment. A component that fails is retried on its own
+     * (back to INIT, or ERROR after too many attempts), without holding back the others. Components over the size
+     * limit go back in the queue for the next deployment.
+     *
+     * @return uploaded, failed, or skipped when none needed uploading
+     */
+    private String processBatchUpload(List<CentralSyncItem> items) {
+        List<CentralSyncItem> ready = new ArrayList<>();
+        List<BundleCreator.Component> components = new ArrayList<>();
+        long size = 0;
+        for (CentralSyncItem item : items) {
+            if (centralSyncService.checkCentralStatusAndUpdateStageIfNeeded(item)) {
+                continue;
+            }
+            try {
+                ensureFilesExist(item);
+                BundleCreator.Component component = bundleCreator.component(item.groupId, item.artifactId,
+                        item.version);
+                if (!components.isEmpty() && size + component.size() > batchMaxSize.asLongValue()) {
+                    // It goes in a next deployment
+                    centralSyncItemService.unclaimUpload(item);
+                    continue;
+                }
+                components.add(component);
+                ready.add(item);
+                size += component.size();
+            } catch (PackageAlreadySyncedException e) {
+                Log.infof("Package already synced, marking as released: %s", item.toGavString());
+                centralSyncItemService.changeStage(item, Stage.RELEASED);
+            } catch (MissingFilesForBundleException e) {
+                Log.info(e.getMessage());
+                retryUpload(item, e);
+            } catch (Throwable throwable) {
+                Log.warnf("Could not bundle '%s' because of: %s", item.toGavString(), throwable.getMessage());
+                retryUpload(item, throwable);
+            }
+        }
+        if (ready.isEmpty()) {
+            return "skipped";
         }
+        try {
+            String releaseId = centralSyncService.sync(components);
+            DistributionSummary.builder("mvnpm.central.upload.components")
+                    .description("Components per deployment uploaded to Central")
+                    .register(meterRegistry)
+                    .record(components.size());
+            for (CentralSyncItem item : ready) {
+                item.stagingRepoId = releaseId;
+                centralSyncItemService.changeStage(item, Stage.UPLOADED);
+            }
+            return "uploaded";
+        } catch (UploadFailedException exception) {
+            Log.warnf("Upload failed for %d components because of: %s", ready.size(), exception.getMessage());
+            for (CentralSyncItem item : ready) {
+                retryUpload(item, exception);
+            }
+        } catch (UnauthorizedException unauthorizedException) {
+            unauthorizedException.printStackTrace();
+            for (CentralSyncItem item : ready) {
+                errorHandlingService.handle(item, unauthorizedException);
+            }
+        } catch (Throwable throwable) {
+            throwable.printStackTrace();
+            for (CentralSyncItem item : ready) {
+                retryUpload(item, throwable);
+            }
+        }
+        return "failed";
     }
 
     /**
@@ -454,6 +671,8 @@ public class ContinuousSyncService {
 
     private void retryUpload(CentralSyncItem centralSyncItem, Throwable t) {
         if (centralSyncItem.uploadAttempts < 10) {
+            centralSyncItem.retryAfter = LocalDateTime.now().plus(retryDelay(uploadRetryDelay,
+                    centralSyncItem.uploadAttempts));
             centralSyncItem = centralSyncItemService.changeStage(centralSyncItem, Stage.INIT);
         } else {
             t.printStackTrace();
@@ -462,7 +681,17 @@ public class ContinuousSyncService {
         }
     }
 
+    /**
+     * Waits twice as long after every failed attempt, up to 30 minutes
+     */
+    static Duration retryDelay(Duration delay, int attempts) {
+        int doublings = Math.min(Math.max(0, attempts - 1), 16);
+        Duration retryDelay = delay.multipliedBy(1L << doublings);
+        return retryDelay.compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : retryDelay;
+    }
+
     void onStart(@Observes StartupEvent ev) throws StatusCheckException {
+        centralSyncItemService.createUploadSlots(uploadSlots);
         // Reset upload if the server restarts
         resetUpload();
         // Reset promotion if the server restarts
@@ -484,6 +713,10 @@ public class ContinuousSyncService {
                         centralSyncItem);
                 continue;
             }
+            if (UploadSlot.isHeldFor(centralSyncItem)) {
+                Log.debugf("[MULTI-POD] Skipping UPLOADING item %s, its upload slot is still renewed", centralSyncItem);
+                continue;
+            }
             centralSyncItem.increaseUploadAttempt();
             if (centralSyncItem.uploadAttempts >= 10) {
                 Log.errorf("Upload stuck after %d attempts, moving to ERROR: %s",
@@ -493,6 +726,7 @@ public class ContinuousSyncService {
                 Log.infof("[MULTI-POD] Resetting stale upload for %s", centralSyncItem);
                 centralSyncItem = centralSyncItemService.changeStage(centralSyncItem, Stage.INIT);
             }
+            centralSyncItemService.releaseUploadSlot(centralSyncItem);
         }
     }
 
@@ -514,4 +748,5 @@ public class ContinuousSyncService {
                         "vaadin-web-components")); // Before we used the @mvnpm namespave
     }
 
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(30);
 }
@@ -0,0 +1,51 @@
+package io.mvnpm.mavencentral.sync;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+
+/**
+ * How far the NPM changes feed has been followed, and by whom (only one pod follows at a time)
+ */
+@Entity
+public class NpmChangesCheckpoint extends PanacheEntityBase {
+    @Id
+    public String feed;
+
+    public String lastSeq;
+    public LocalDateTime leaseUntil;
+    public LocalDateTime updated;
+
+    public NpmChangesCheckpoint() {
+    }
+
+    public static void createIfAbsent(String feed) {
+        getEntityManager().createNativeQuery(
+                "INSERT INTO npmchangescheckpoint (feed) VALUES (:feed)"
+                        + " ON CONFLICT (feed) DO NOTHING")
+                .setParameter("feed", feed)
+                .executeUpdate();
+    }
+
+    /**
+     * Atomically take the lease on the feed if nobody else holds it. Must be called within a transaction.
+     * Returns true if claimed.
+     */
+    public static boolean claim(String feed, LocalDateTime leaseUntil) {
+        return getEntityManager().createNativeQuery(
+                "UPDATE npmchangescheckpoint SET leaseuntil = :leaseUntil "
+                        + "WHERE feed = :feed AND (leaseuntil IS NULL OR leaseuntil < :now)")
+                .setParameter("leaseUntil", leaseUntil)
+                .setParameter("feed", feed)
+                .setParameter("now", LocalDateTime.now())
+                .executeUpdate() == 1;
+    }
+
+    @Override
+    public String toString() {
+        return feed + " [lastSeq=" + lastSeq + ", leaseUntil=" + leaseUntil + "]";
+    }
+}
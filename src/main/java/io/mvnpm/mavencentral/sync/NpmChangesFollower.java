@@ -0,0 +1,168 @@
+package io.mvnpm.mavencentral.sync;
+
+import static io.quarkus.scheduler.Scheduled.ConcurrentExecution.SKIP;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.mvnpm.npm.NpmChangesClient;
+import io.mvnpm.npm.model.Change;
+import io.mvnpm.npm.model.Changes;
+import io.mvnpm.npm.model.Name;
+import io.mvnpm.npm.model.NameParser;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+
+/**
+ * Follows the NPM Registry changes feed and checks the synced packages that changed,
+ * so new releases are picked up without waiting for their next scheduled check.
+ * The sequence is checkpointed in the DB, and only one pod follows at a time.
+ */
+@ApplicationScoped
+public class NpmChangesFollower {
+
+    @RestClient
+    NpmChangesClient npmChangesClient;
+
+    @Inject
+    ContinuousSyncService continuousSyncService;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "mvnpm.npm-changes.batch-size", defaultValue = "1000")
+    int batchSize;
+
+    @ConfigProperty(name = "mvnpm.npm-changes.max-batches", defaultValue = "20")
+    int maxBatches;
+
+    @ConfigProperty(name = "mvnpm.npm-changes.synced-refresh", defaultValue = "10m")
+    Duration syncedRefresh;
+
+    private Set<String> synced;
+    private Instant syncedLoaded = Instant.EPOCH;
+
+    @Scheduled(every = "${mvnpm.npm-changes.every:30s}", concurrentExecution = SKIP)
+    @RunOnVirtualThread
+    public void follow() {
+        try {
+            NpmChangesCheckpoint checkpoint = claimCheckpoint();
+            if (checkpoint == null) {
+                Log.debug("NPM changes feed is followed by another pod");
+                return;
+            }
+            try {
+                String since = checkpoint.lastSeq;
+                if (since == null) {
+                    // First run: start from now, the scheduled checks cover what happened before
+                    since = npmChangesClient.getRegistryInfo().updateSeq();
+                    saveCheckpoint(since);
+                    Log.infof("Following NPM changes from sequence %s", since);
+                }
+                for (int batch = 0; batch < maxBatches; batch++) {
+                    Changes changes = npmChangesClient.getChanges(since, batchSize);
+                    int count = changes.results() == null ? 0 : changes.results().size();
+                    meterRegistry.counter("mvnpm.npm.changes").increment(count);
+                    for (String ga : findSyncedChanges(changes)) {
+                        String[] parts = ga.split(":");
+                        Log.infof("NPM reported a change in %s, checking for updates", ga);
+                        meterRegistry.counter("mvnpm.npm.changes.synced").increment();
+                        continuousSyncService.checkChanged(parts[0], parts[1]);
+                    }
+                    if (changes.lastSeq() != null) {
+                        since = changes.lastSeq();
+                        saveCheckpoint(since);
+                    }
+                    if (count < batchSize) {
+                        break; // Caught up
+                    }
+                }
+            } finally {
+                releaseCheckpoint();
+            }
+        } catch (Throwable t) {
+            Log.error("Error while following NPM changes: " + t.getMessage());
+        }
+    }
+
+    /**
+     * @return groupId:artifactId of the synced packages in this page of changes
+     */
+    Set<String> findSyncedChanges(Changes changes) {
+        Set<String> changed = new LinkedHashSet<>();
+        if (changes.results() == null) {
+            return changed;
+        }
+        Set<String> syncedGas = getSynced();
+        for (Change change : changes.results()) {
+            if (change.deleted() || change.id() == null || change.id().startsWith("_design/")) {
+                continue;
+            }
+            try {
+                Name name = NameParser.fromNpmProject(change.id());
+                String ga = name.mvnGroupId + ":" + name.mvnArtifactId;
+                if (syncedGas.contains(ga)) {
+                    changed.add(ga);
+                }
+            } catch (RuntimeException e) {
+                Log.debugf("Ignoring NPM change for [%s]: %s", change.id(), e.getMessage());
+            }
+        }
+        return changed;
+    }
+
+    private Set<String> getSynced() {
+        if (synced == null || syncedLoaded.plus(syncedRefresh).isBefore(Instant.now())) {
+            synced = loadSynced();
+            syncedLoaded = Instant.now();
+        }
+        return synced;
+    }
+
+    @Transactional
+    Set<String> loadSynced() {
+        return SyncedPackage.findAllGaStrings();
+    }
+
+    @Transactional
+    NpmChangesCheckpoint claimCheckpoint() {
+        NpmChangesCheckpoint.createIfAbsent(FEED);
+        if (!NpmChangesCheckpoint.claim(FEED, LocalDateTime.now().plus(LEASE))) {
+            return null;
+        }
+        return NpmChangesCheckpoint.findById(FEED);
+    }
+
+    @Transactional
+    void saveCheckpoint(String lastSeq) {
+        NpmChangesCheckpoint checkpoint = NpmChangesCheckpoint.findById(FEED);
+        checkpoint.lastSeq = lastSeq;
+        checkpoint.updated = LocalDateTime.now();
+        // Still busy, keep the lease
+        checkpoint.leaseUntil = LocalDateTime.now().plus(LEASE);
+    }
+
+    @Transactional
+    void releaseCheckpoint() {
+        NpmChangesCheckpoint checkpoint = NpmChangesCheckpoint.findById(FEED);
+        if (checkpoint != null) {
+            checkpoint.leaseUntil = null;
+        }
+    }
+
+    private static final String FEED = "registry";
+    // Longer than a run takes, so a crashed pod only blocks following for this long
+    private static final Duration LEASE = Duration.ofMinutes(10);
+}
@@ -0,0 +1,169 @@
+package io.mvnpm.mavencentral.sync;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Optional;
+import java.util.UUID;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.vertx.mutiny.core.eventbus.EventBus;
+
+/**
+ * Stage changes made by the other pods, through Postgres LISTEN/NOTIFY. {@link CentralSyncItemService} notifies
+ * the stage changes other pods act on (see {@link #isNotified(Stage)}) within its transaction, so they are only
+ * delivered once committed. Each pod holds one connection listening, and publishes the changes of the other pods
+ * on the local event bus, to act on them right away instead of on the next poll. While the connection is lost the
+ * polling schedulers cover for it.
+ *
+ * The listening connection is held for as long as the pod runs, so it is opened outside of the datasource pool
+ * (with the same url and credentials), and does not take one of its connections away.
+ */
+@ApplicationScoped
+public class StageChangeListener {
+
+    @Inject
+    EventBus bus;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "quarkus.datasource.jdbc.url")
+    Optional<String> url;
+
+    @ConfigProperty(name = "quarkus.datasource.username")
+    Optional<String> username;
+
+    @ConfigProperty(name = "quarkus.datasource.password")
+    Optional<String> password;
+
+    @ConfigProperty(name = "mvnpm.sync.listen.enabled", defaultValue = "true")
+    boolean enabled;
+
+    private volatile boolean running = false;
+    private Thread listener;
+
+    void onStart(@Observes StartupEvent ev) {
+        if (!enabled || url.isEmpty()) {
+            Log.info("[MULTI-POD] Not listening for the stage changes of other pods");
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "mvnpm-stage-change-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private void listen() {
+        long backoff = MIN_BACKOFF_MS;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url.get(), username.orElse(null),
+                    password.orElse(null))) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                execute(connection, "LISTEN " + CHANNEL);
+                Log.infof("[MULTI-POD] Listening for the stage changes of other pods (this is pod %s)", POD);
+                backoff = MIN_BACKOFF_MS;
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(WAIT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            received(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                Log.warnf("[MULTI-POD] Stage change listener lost its connection, reconnecting in %ds: %s",
+                        backoff / 1000, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    /**
+     * Only what other pods act on goes over Postgres: a queued item can be uploaded by any pod, a release ends
+     * what they cached as unreleased. The other stage changes stay on this pod.
+     */
+    static boolean isNotified(Stage stage) {
+        return stage == Stage.INIT || stage == Stage.RELEASED;
+    }
+
+    private void received(String payload) {
+        RemoteStageChange change = parse(payload, POD);
+        if (change != null) {
+            Log.debugf("[MULTI-POD] Stage change from another pod: %s [%s]", change.gav(), change.stage());
+            meterRegistry.counter("mvnpm.sync.notifications", "stage", change.stage().name()).increment();
+            bus.publish(REMOTE_STAGE_CHANGE, change);
+        }
+    }
+
+    static String payload(String pod, Stage stage, Gav gav) {
+        return pod + " " + stage.name() + " " + gav.getGroupId() + " " + gav.getArtifactId() + " " + gav.getVersion();
+    }
+
+    /**
+     * @return null for the changes made by this pod (those went over the event bus already), or a malformed payload
+     */
+    static RemoteStageChange parse(String payload, String pod) {
+        String[] parts = payload == null ? new String[0] : payload.split(" ");
+        if (parts.length != 5) {
+            Log.debugf("[MULTI-POD] Ignoring stage change notification '%s'", payload);
+            return null;
+        }
+        if (parts[0].equals(pod)) {
+            return null;
+        }
+        try {
+            return new RemoteStageChange(new Gav(parts[2], parts[3], parts[4]), Stage.valueOf(parts[1]));
+        } catch (IllegalArgumentException e) {
+            Log.debugf("[MULTI-POD] Ignoring stage change notification '%s'", payload);
+            return null;
+        }
+    }
+
+    /**
+     * A stage change committed by another pod
+     */
+    public record RemoteStageChange(Gav gav, Stage stage) {
+    }
+
+    public static final String CHANNEL = "mvnpm_sync_stage";
+    public static final String REMOTE_STAGE_CHANGE = "central-sync-item-remote-stage-change";
+    // Tells the notifications of this pod apart
+    public static final String POD = UUID.randomUUID().toString();
+    private static final int WAIT_MS = 10_000;
+    private static final long MIN_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = 60_000;
+}
@@ -1,7 +1,9 @@
 package io.mvnpm.mavencentral.sync;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
@@ -66,6 +68,15 @@ public class SyncedPackage extends PanacheEntityBase {
                 .executeUpdate();
     }
 
+    /**
+     * All synced packages as groupId:artifactId
+     */
+    public static Set<String> findAllGaStrings() {
+        return new HashSet<>(getEntityManager()
+                .createQuery("select p.groupId || ':' || p.artifactId from SyncedPackage p", String.class)
+                .getResultList());
+    }
+
     public String toGaString() {
         return groupId + ":" + artifactId;
     }
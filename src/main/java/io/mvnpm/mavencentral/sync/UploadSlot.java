@@ -0,0 +1,83 @@
+package io.mvnpm.mavencentral.sync;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+
+/**
+ * One of the cluster wide upload slots to Central: only as many bundles as there are slots are uploaded at the
+ * same time, by all pods together. A slot is leased, so the slot of a pod that went away frees up again. The pod
+ * uploading renews the lease while the upload runs.
+ */
+@Entity
+public class UploadSlot extends PanacheEntityBase {
+    @Id
+    public int slot;
+
+    public String holder; // The groupId:artifactId:version being uploaded
+    public LocalDateTime claimedAt;
+    public LocalDateTime leaseUntil;
+
+    public UploadSlot() {
+    }
+
+    public static void createIfAbsent(int slot) {
+        getEntityManager().createNativeQuery(
+                "INSERT INTO uploadslot (slot) VALUES (:slot)"
+                        + " ON CONFLICT (slot) DO NOTHING")
+                .setParameter("slot", slot)
+                .executeUpdate();
+    }
+
+    /**
+     * Lock a free slot (one that is not held, or whose lease ran out), skipping the ones other pods are claiming.
+     * Must be called within a transaction.
+     *
+     * @param slots only the slots below this are used, so the number of slots can be lowered
+     * @return null when all slots are taken
+     */
+    public static UploadSlot lockFree(int slots) {
+        @SuppressWarnings("unchecked")
+        List<UploadSlot> free = getEntityManager()
+                .createNativeQuery(
+                        "SELECT * FROM uploadslot WHERE slot < :slots AND (leaseuntil IS NULL OR leaseuntil < :now) "
+                                + "ORDER BY slot ASC LIMIT 1 FOR UPDATE SKIP LOCKED",
+                        UploadSlot.class)
+                .setParameter("slots", slots)
+                .setParameter("now", LocalDateTime.now())
+                .getResultList();
+        return free.isEmpty() ? null : free.get(0);
+    }
+
+    /**
+     * Lock the slot held for the upload of this groupId:artifactId:version. Must be called within a transaction.
+     *
+     * @return null when there is none (anymore)
+     */
+    public static UploadSlot lockHeldBy(String holder) {
+        @SuppressWarnings("unchecked")
+        List<UploadSlot> held = getEntityManager()
+                .createNativeQuery("SELECT * FROM uploadslot WHERE holder = :holder FOR UPDATE", UploadSlot.class)
+                .setParameter("holder", holder)
+                .getResultList();
+        return held.isEmpty() ? null : held.get(0);
+    }
+
+    /**
+     * Whether a slot is held for the upload of this item, and its lease did not run out: in the name of the item, or
+     * for the deployment the item was claimed in (its stage changed at the time the slot was claimed)
+     */
+    public static boolean isHeldFor(CentralSyncItem item) {
+        return count("leaseUntil > ?1 and (holder = ?2 or claimedAt = ?3)", LocalDateTime.now(), item.toGavString(),
+                item.stageChangeTime) > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "slot " + slot + " [holder=" + holder + ", leaseUntil=" + leaseUntil + "]";
+    }
+}
@@ -1,11 +1,11 @@
 package io.mvnpm.mcp;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
-import java.util.zip.GZIPInputStream;
 
 import jakarta.inject.Inject;
 
@@ -13,6 +13,7 @@ import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 
 import io.mvnpm.creator.FileType;
+import io.mvnpm.creator.utils.CompressionPool;
 import io.mvnpm.maven.MavenRepositoryService;
 import io.mvnpm.maven.NameVersion;
 import io.mvnpm.npm.model.Name;
@@ -99,7 +100,7 @@ public class ArtifactTools {
 
     private void listArchiveEntries(Path archivePath, FileType fileType, StringBuilder sb) throws IOException {
         if (fileType == FileType.tgz) {
-            try (GZIPInputStream gzis = new GZIPInputStream(Files.newInputStream(archivePath));
+            try (InputStream gzis = CompressionPool.shared().gzipInput(Files.newInputStream(archivePath));
                     TarArchiveInputStream tais = new TarArchiveInputStream(gzis)) {
                 TarArchiveEntry entry;
                 while ((entry = tais.getNextEntry()) != null) {
@@ -0,0 +1,26 @@
+package io.mvnpm.npm;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
+
+import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
+
+import io.mvnpm.npm.model.Changes;
+import io.mvnpm.npm.model.RegistryInfo;
+
+/**
+ * The CouchDB style replication API of the NPM Registry (https://replicate.npmjs.com/registry)
+ */
+@RegisterRestClient(configKey = "npm-changes")
+public interface NpmChangesClient {
+
+    @GET
+    RegistryInfo getRegistryInfo();
+
+    @GET
+    @Path("/_changes")
+    Changes getChanges(
+            @QueryParam("since") String since,
+            @QueryParam("limit") int limit);
+}
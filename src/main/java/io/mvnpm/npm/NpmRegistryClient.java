@@ -1,9 +1,13 @@
 package io.mvnpm.npm;
 
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
@@ -20,11 +24,25 @@ public interface NpmRegistryClient {
     @Path("/{project}")
     Response getProject(@PathParam("project") String project);
 
+    /**
+     * The abbreviated ("corgi") packument, only what an install needs. Falls back to the full one.
+     * Null validators are not sent.
+     */
+    @GET
+    @Path("/{project}")
+    @Produces({ ABBREVIATED_METADATA, MediaType.APPLICATION_JSON })
+    Response getAbbreviatedProject(
+            @PathParam("project") String project,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @HeaderParam(HttpHeaders.IF_MODIFIED_SINCE) String ifModifiedSince);
+
     @GET
     @Path("/{project}/{version}")
     Response getPackage(
             @PathParam("project") String project,
-            @PathParam("version") String version);
+            @PathParam("version") String version,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @HeaderParam(HttpHeaders.IF_MODIFIED_SINCE) String ifModifiedSince);
 
     @GET
     @Path("/-/v1/search")
@@ -36,4 +54,5 @@ public interface NpmRegistryClient {
             @QueryParam("maintenance") double maintenance,
             @QueryParam("popularity") double popularity);
 
+    String ABBREVIATED_METADATA = "application/vnd.npm.install-v1+json";
 }
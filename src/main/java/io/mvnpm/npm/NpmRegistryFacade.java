@@ -1,9 +1,18 @@
 package io.mvnpm.npm;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.function.Function;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
 
 import org.eclipse.microprofile.faulttolerance.Retry;
@@ -11,16 +20,21 @@ import org.eclipse.microprofile.faulttolerance.Timeout;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.jboss.resteasy.reactive.ClientWebApplicationException;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.mvnpm.npm.NpmResponseStore.StoredResponse;
 import io.mvnpm.npm.exceptions.GetPackageException;
 import io.mvnpm.npm.model.Project;
 import io.mvnpm.npm.model.ProjectInfo;
 import io.mvnpm.npm.model.SearchResults;
+import io.quarkus.cache.CacheInvalidate;
 import io.quarkus.cache.CacheResult;
 import io.smallrye.common.annotation.Blocking;
 
 /**
  * Facade on the NPM Registry.
- * Adds caching
+ * Adds caching, and revalidates expired entries with the stored ETag / Last-Modified
  *
  * @author Phillip Kruger (phillip.kruger@gmail.com)
  */
@@ -30,6 +44,15 @@ public class NpmRegistryFacade {
     @RestClient
     NpmRegistryClient npmRegistryClient;
 
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    NpmResponseStore npmResponseStore;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
     /**
      * Fetch full Project from NPM (uncached).
      * Only use when all fields are needed (e.g. REST API serialization).
@@ -49,13 +72,43 @@ public class NpmRegistryFacade {
     /**
      * Lightweight cached projection: distTags + version strings + lastModified.
      * Drops the large per-version time map, description, homepage, license, name.
+     * Fetched as the abbreviated packument, streamed into the disk cache and read back from there, so neither the
+     * response nor the per-version manifests are ever held in memory as a whole.
+     * Backed by the disk cache, so a restarted pod does not need NPM for recently validated projects.
      */
     @CacheResult(cacheName = "npm-project-cache")
     @Timeout(unit = ChronoUnit.SECONDS, value = 10)
     @Retry(maxRetries = 1)
     @Blocking
     public ProjectInfo getProjectInfo(String project) {
-        return ProjectInfo.from(getProject(project));
+        Path file = npmResponseStore.projectFile(project);
+        Optional<StoredResponse> stored = npmResponseStore.get(file);
+        if (stored.isPresent() && npmResponseStore.isFresh(stored.get())) {
+            Optional<ProjectInfo> projectInfo = npmResponseStore.read(stored.get(), ProjectInfo.class);
+            if (projectInfo.isPresent()) {
+                meterRegistry.counter("mvnpm.npm.disk-cache", "type", PROJECT, "result", "hit").increment();
+                return projectInfo.get();
+            }
+            // Evicted since the lookup
+            stored = Optional.empty();
+        }
+        return readOrRevalidate(PROJECT, ProjectInfo.class, file, stored, validators -> {
+            Response response = npmRegistryClient.getAbbreviatedProject(project,
+                    validators.map(StoredResponse::etag).orElse(null),
+                    validators.map(StoredResponse::lastModified).orElse(null));
+            if (response.getStatus() >= 400) {
+                throw new WebApplicationException("Error while getting Project info for [" + project + "]", response);
+            }
+            return response;
+        });
+    }
+
+    /**
+     * Drop the cached Project info, so the next call asks NPM (conditionally)
+     */
+    @CacheInvalidate(cacheName = "npm-project-cache")
+    public void invalidateProjectInfo(String project) {
+        npmResponseStore.expire(npmResponseStore.projectFile(project));
     }
 
     @CacheResult(cacheName = "npm-package-cache")
@@ -67,11 +120,66 @@ public class NpmRegistryFacade {
             // We do not support git repos as version. Maybe something we can add later
             version = "*";
         }
+        String packageVersion = version;
+        Path file = npmResponseStore.packageFile(project, packageVersion);
+        Optional<StoredResponse> stored = npmResponseStore.get(file);
+        if (stored.isPresent() && npmResponseStore.isFresh(stored.get())) {
+            Optional<io.mvnpm.npm.model.Package> npmPackage = npmResponseStore.read(stored.get(),
+                    io.mvnpm.npm.model.Package.class);
+            if (npmPackage.isPresent()) {
+                meterRegistry.counter("mvnpm.npm.disk-cache", "type", PACKAGE, "result", "hit").increment();
+                return npmPackage.get();
+            }
+            // Evicted since the lookup
+            stored = Optional.empty();
+        }
         try {
-            Response response = npmRegistryClient.getPackage(project, version);
-            return response.readEntity(io.mvnpm.npm.model.Package.class);
+            return readOrRevalidate(PACKAGE, io.mvnpm.npm.model.Package.class, file, stored,
+                    validators -> npmRegistryClient.getPackage(project, packageVersion,
+                            validators.map(StoredResponse::etag).orElse(null),
+                            validators.map(StoredResponse::lastModified).orElse(null)));
         } catch (ClientWebApplicationException e) {
-            throw new GetPackageException(project, version, e);
+            throw new GetPackageException(project, packageVersion, e);
+        }
+    }
+
+    /**
+     * A 304 keeps the stored response, anything else replaces it. The response is transcoded to the store as it
+     * comes in and the value read from the stored file, only if it can not be stored it is read from the response.
+     *
+     * @param fetch asks NPM, conditionally when given a stored response
+     */
+    private <T> T readOrRevalidate(String type, Class<T> valueType, Path file, Optional<StoredResponse> stored,
+            Function<Optional<StoredResponse>, Response> fetch) {
+        Response response = fetch.apply(stored);
+        if (response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode() && stored.isPresent()) {
+            Optional<T> value = npmResponseStore.read(stored.get(), valueType);
+            if (value.isPresent()) {
+                meterRegistry.counter("mvnpm.npm.revalidation", "type", type, "result", "not-modified").increment();
+                npmResponseStore.revalidated(stored.get());
+                return value.get();
+            }
+            // Evicted while revalidating, and a 304 has no body
+            response.close();
+            stored = Optional.empty();
+            response = fetch.apply(stored);
+        }
+        if (stored.isPresent()) {
+            meterRegistry.counter("mvnpm.npm.revalidation", "type", type, "result", "modified").increment();
+        } else {
+            meterRegistry.counter("mvnpm.npm.disk-cache", "type", type, "result", "miss").increment();
+        }
+        try (InputStream body = response.readEntity(InputStream.class)) {
+            Optional<StoredResponse> fetched = npmResponseStore.put(file, response.getHeaderString(HttpHeaders.ETAG),
+                    response.getHeaderString(HttpHeaders.LAST_MODIFIED), body);
+            if (fetched.isPresent()) {
+                // The newest response is never evicted, so it is only gone if removed from the disk
+                return npmResponseStore.read(fetched.get(), valueType)
+                        .orElseThrow(() -> new NoSuchFileException(file.toString()));
+            }
+            return objectMapper.readValue(body, valueType);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Error while reading " + type + " from " + file, ex);
         }
     }
 
@@ -89,4 +197,6 @@ public class NpmRegistryFacade {
     }
 
     private static final int ITEMS_PER_PAGE = 50; // TODO: Move to config ?
+    private static final String PROJECT = "project";
+    private static final String PACKAGE = "package";
 }
@@ -0,0 +1,321 @@
+package io.mvnpm.npm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.mvnpm.creator.PackageFileLocator;
+import io.mvnpm.creator.utils.FileUtil;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.configuration.MemorySize;
+
+/**
+ * Second level, on disk, cache of NPM Registry responses, shared by restarts.
+ * Each entry is one Smile file: the validators (ETag / Last-Modified) followed by the response document,
+ * transcoded token for token so the model deserializers read it as if it came from NPM.
+ * The file's last modified time is when it was last (re)validated with NPM.
+ * Evicts least recently used entries when the total size goes over the configured maximum.
+ */
+@ApplicationScoped
+public class NpmResponseStore {
+
+    @Inject
+    PackageFileLocator packageFileLocator;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "mvnpm.npm.disk-cache.max-size", defaultValue = "2G")
+    MemorySize maxSize;
+
+    @ConfigProperty(name = "mvnpm.npm.disk-cache.max-age", defaultValue = "1h")
+    Duration maxAge;
+
+    // Access ordered, so the first entry is the least recently used. Built lazily from the files on disk.
+    private LinkedHashMap<Path, Long> index;
+    private long totalBytes;
+
+    public Path projectFile(String project) {
+        return getNpmDir().resolve(encode(project)).resolve(PACKUMENT);
+    }
+
+    public Path packageFile(String project, String version) {
+        return getNpmDir().resolve(encode(project)).resolve(VERSIONS).resolve(encode(version) + DOT_SMILE);
+    }
+
+    /**
+     * Read the validators of a stored response. The document itself is only read with {@link #read}
+     */
+    public Optional<StoredResponse> get(Path file) {
+        String etag = null;
+        String lastModified = null;
+        try (JsonParser parser = createParser(file)) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME && !BODY.equals(parser.currentName())) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    if (ETAG.equals(field)) {
+                        etag = parser.getText();
+                    } else if (LAST_MODIFIED.equals(field)) {
+                        lastModified = parser.getText();
+                    }
+                }
+            }
+            FileTime validated = Files.getLastModifiedTime(file);
+            touch(file);
+            return Optional.of(new StoredResponse(file, etag, lastModified, validated.toInstant()));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            Log.warnf("Could not read stored NPM response %s: %s", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return the document, empty when it was evicted (or expired and replaced) since it was looked up
+     */
+    public <T> Optional<T> read(StoredResponse storedResponse, Class<T> type) {
+        try (JsonParser parser = createParser(storedResponse.file())) {
+            parser.setCodec(objectMapper);
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if (BODY.equals(field)) {
+                    return Optional.of(objectMapper.readValue(parser, type));
+                }
+                parser.skipChildren();
+            }
+            throw new IOException("No document in " + storedResponse.file());
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Store a JSON response document with its validators, replacing what was there.
+     * The document is transcoded as it is read, into a temporary file moved in place once complete.
+     *
+     * @return the stored response, empty if it can not be stored (nothing was read from the document then)
+     * @throws IOException if the document could not be read or written, the previous response stays stored
+     */
+    public Optional<StoredResponse> put(Path file, String etag, String lastModified, InputStream json)
+            throws IOException {
+        Path tempFile;
+        OutputStream out;
+        try {
+            FileUtil.createDirectories(file);
+            tempFile = FileUtil.getTempFilePathFor(file);
+            out = Files.newOutputStream(tempFile);
+        } catch (IOException | UncheckedIOException e) {
+            // Only costs a full download next time
+            Log.warnf("Could not store NPM response %s: %s", file, e.getMessage());
+            return Optional.empty();
+        }
+        try {
+            try (out) {
+                toSmile(etag, lastModified, json, out);
+            }
+            FileUtil.forceMoveAtomic(tempFile, file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        added(file, size(file));
+        return Optional.of(new StoredResponse(file, etag, lastModified, Instant.now()));
+    }
+
+    /**
+     * NPM confirmed the stored response is still current
+     */
+    public void revalidated(StoredResponse storedResponse) {
+        try {
+            Files.setLastModifiedTime(storedResponse.file(), FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            Log.debugf("Could not mark %s as revalidated: %s", storedResponse.file(), e.getMessage());
+        }
+    }
+
+    /**
+     * Make a stored response stale, so it gets revalidated on next use
+     */
+    public void expire(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(maxAge)));
+        } catch (NoSuchFileException e) {
+            // Nothing stored
+        } catch (IOException e) {
+            Log.warnf("Could not expire stored NPM response %s: %s", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Fresh responses are used without asking NPM
+     */
+    public boolean isFresh(StoredResponse storedResponse) {
+        return storedResponse.validated().plus(maxAge).isAfter(Instant.now());
+    }
+
+    private void toSmile(String etag, String lastModified, InputStream json, OutputStream out) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json);
+                JsonGenerator generator = SMILE_FACTORY.createGenerator(out)) {
+            generator.writeStartObject();
+            if (etag != null) {
+                generator.writeStringField(ETAG, etag);
+            }
+            if (lastModified != null) {
+                generator.writeStringField(LAST_MODIFIED, lastModified);
+            }
+            generator.writeFieldName(BODY);
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+            generator.writeEndObject();
+        }
+    }
+
+    private JsonParser createParser(Path file) throws IOException {
+        if (Files.size(file) < MAP_THRESHOLD) {
+            // Mapping costs more than reading for most (small) responses
+            return SMILE_FACTORY.createParser(Files.readAllBytes(file));
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return SMILE_FACTORY.createParser(new ByteBufferBackedInputStream(buffer));
+        }
+    }
+
+    private synchronized void touch(Path file) {
+        getIndex().get(file);
+    }
+
+    private synchronized void added(Path file, long size) {
+        Long previous = getIndex().put(file, size);
+        totalBytes += size - (previous == null ? 0 : previous);
+        evict();
+    }
+
+    private void evict() {
+        long max = maxSize.asLongValue();
+        Iterator<Map.Entry<Path, Long>> eldest = index.entrySet().iterator();
+        // Never the newest one, it is read right after it is stored
+        while (totalBytes > max && index.size() > 1) {
+            Map.Entry<Path, Long> entry = eldest.next();
+            try {
+                Files.deleteIfExists(entry.getKey());
+            } catch (IOException e) {
+                Log.warnf("Could not evict stored NPM response %s: %s", entry.getKey(), e.getMessage());
+            }
+            totalBytes -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    private LinkedHashMap<Path, Long> getIndex() {
+        if (index == null) {
+            index = new LinkedHashMap<>(1024, 0.75f, true);
+            totalBytes = 0;
+            Path npmDir = getNpmDir();
+            if (Files.isDirectory(npmDir)) {
+                try (Stream<Path> files = Files.walk(npmDir)) {
+                    // Oldest first, the closest we have to least recently used after a restart
+                    files.filter(f -> f.getFileName().toString().endsWith(DOT_SMILE))
+                            .map(f -> Map.entry(f, lastModified(f)))
+                            .sorted(Map.Entry.comparingByValue())
+                            .forEach(e -> {
+                                long size = size(e.getKey());
+                                index.put(e.getKey(), size);
+                                totalBytes += size;
+                            });
+                } catch (IOException | UncheckedIOException e) {
+                    Log.warnf("Could not index stored NPM responses in %s: %s", npmDir, e.getMessage());
+                }
+            }
+            meterRegistry.gauge("mvnpm.npm.disk-cache.size", this, s -> s.totalBytes);
+            evict();
+        }
+        return index;
+    }
+
+    private Path getNpmDir() {
+        return packageFileLocator.getCacheDir().resolve(NPM);
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static String encode(String part) {
+        return URLEncoder.encode(part, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A stored response, with the validators to revalidate it with
+     */
+    public record StoredResponse(Path file, String etag, String lastModified, Instant validated) {
+    }
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    // Shared string values make the many repeated names, versions and urls in packuments cheap
+    private static final SmileFactory SMILE_FACTORY = SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build();
+    private static final long MAP_THRESHOLD = 64 * 1024;
+    private static final String NPM = "npm";
+    private static final String PACKUMENT = "packument.smile";
+    private static final String VERSIONS = "versions";
+    private static final String DOT_SMILE = ".smile";
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "last-modified";
+    private static final String BODY = "body";
+}
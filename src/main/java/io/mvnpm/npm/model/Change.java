@@ -0,0 +1,10 @@
+package io.mvnpm.npm.model;
+
+/**
+ * One entry in the NPM Registry changes feed. The id is the NPM project name.
+ */
+public record Change(
+        String seq,
+        String id,
+        boolean deleted) {
+}
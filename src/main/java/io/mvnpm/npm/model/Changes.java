@@ -0,0 +1,13 @@
+package io.mvnpm.npm.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A page of the NPM Registry changes feed
+ */
+public record Changes(
+        List<Change> results,
+        @JsonProperty("last_seq") String lastSeq) {
+}
@@ -2,11 +2,15 @@ package io.mvnpm.npm.model;
 
 import java.util.Set;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
 /**
  * Lightweight projection of a Project for caching.
  * Only retains the fields callers actually need, dropping
  * the large per-version time map and unused metadata fields.
+ * Deserializes straight from a (abbreviated) packument.
  */
+@JsonDeserialize(using = ProjectInfoDeserializer.class)
 public record ProjectInfo(
         DistTags distTags,
         Set<String> versions,
@@ -0,0 +1,104 @@
+package io.mvnpm.npm.model;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+/**
+ * Streams a ProjectInfo out of a packument, skipping everything else (e.g. the per-version manifests).
+ * Reads both the abbreviated install document (top level "modified") and the full one ("time"."modified").
+ */
+public class ProjectInfoDeserializer extends StdDeserializer<ProjectInfo> {
+
+    public ProjectInfoDeserializer() {
+        this(null);
+    }
+
+    public ProjectInfoDeserializer(Class<?> vc) {
+        super(vc);
+    }
+
+    @Override
+    public ProjectInfo deserialize(JsonParser jp, DeserializationContext dc) throws IOException {
+        DistTags distTags = null;
+        Set<String> versions = new LinkedHashSet<>();
+        String modified = null;
+        if (jp.currentToken() != JsonToken.START_OBJECT) {
+            jp.skipChildren();
+            return new ProjectInfo(distTags, versions, modified);
+        }
+        while (jp.nextToken() != JsonToken.END_OBJECT) {
+            String field = jp.currentName();
+            jp.nextToken();
+            switch (field) {
+                case "dist-tags" -> distTags = readDistTags(jp);
+                case "versions" -> readVersions(jp, versions);
+                case "modified" -> modified = jp.currentToken() == JsonToken.VALUE_STRING ? jp.getText() : modified;
+                case "time" -> {
+                    String timeModified = readTimeModified(jp);
+                    if (modified == null) {
+                        modified = timeModified;
+                    }
+                }
+                default -> jp.skipChildren();
+            }
+        }
+        return new ProjectInfo(distTags, versions, modified);
+    }
+
+    private DistTags readDistTags(JsonParser jp) throws IOException {
+        if (jp.currentToken() != JsonToken.START_OBJECT) {
+            jp.skipChildren();
+            return null;
+        }
+        String latest = null;
+        String next = null;
+        while (jp.nextToken() != JsonToken.END_OBJECT) {
+            String tag = jp.currentName();
+            jp.nextToken();
+            if ("latest".equals(tag) && jp.currentToken() == JsonToken.VALUE_STRING) {
+                latest = jp.getText();
+            } else if ("next".equals(tag) && jp.currentToken() == JsonToken.VALUE_STRING) {
+                next = jp.getText();
+            } else {
+                jp.skipChildren();
+            }
+        }
+        return new DistTags(latest, next);
+    }
+
+    private void readVersions(JsonParser jp, Set<String> versions) throws IOException {
+        if (jp.currentToken() != JsonToken.START_OBJECT) {
+            jp.skipChildren();
+            return;
+        }
+        while (jp.nextToken() != JsonToken.END_OBJECT) {
+            versions.add(jp.currentName());
+            jp.nextToken();
+            jp.skipChildren();
+        }
+    }
+
+    private String readTimeModified(JsonParser jp) throws IOException {
+        String modified = null;
+        if (jp.currentToken() != JsonToken.START_OBJECT) {
+            jp.skipChildren();
+            return modified;
+        }
+        while (jp.nextToken() != JsonToken.END_OBJECT) {
+            String key = jp.currentName();
+            jp.nextToken();
+            if ("modified".equals(key) && jp.currentToken() == JsonToken.VALUE_STRING) {
+                modified = jp.getText();
+            } else {
+                jp.skipChildren();
+            }
+        }
+        return modified;
+    }
+}
@@ -0,0 +1,7 @@
+package io.mvnpm.npm.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record RegistryInfo(
+        @JsonProperty("update_seq") String updateSeq) {
+}
@@ -53,6 +53,14 @@ public class MavenRepositoryApiTest {
                 .when().get("/maven2/org/mvnpm/at/vaadin/tabs/24.3.8/vaadin-24.3.8.pom.md5")
                 .then().log().all().and()
                 .statusCode(Matchers.in(List.of(200, 404)));
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .when().get("/maven2/org/mvnpm/at/vaadin/tabs/24.3.8/vaadin-24.3.8.pom.sha256")
+                .then().log().all().and()
+                .statusCode(Matchers.in(List.of(200, 404)));
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .when().get("/maven2/org/mvnpm/at/vaadin/tabs/24.3.8/vaadin-24.3.8.jar.sha512")
+                .then().log().all().and()
+                .statusCode(Matchers.in(List.of(200, 404)));
         RestAssured.given().header("User-Agent", "m2e/unit-test")
                 .when().get("/maven2/org/mvnpm/at/vaadin/tabs/24.3.8/vaadin-24.3.8.jar.asc")
                 .then().log().all().and()
@@ -0,0 +1,152 @@
+package io.mvnpm.creator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mvnpm.creator.type.PomService;
+import io.mvnpm.npm.NpmRegistryFacade;
+import io.mvnpm.npm.model.Name;
+import io.mvnpm.npm.model.NameParser;
+
+class PackageCreatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    PackageCreator packageCreator;
+    ExecutorService executor;
+    Name name = NameParser.fromNpmProject("lit");
+
+    @BeforeEach
+    void setUp() {
+        packageCreator = new PackageCreator();
+        packageCreator.packageFileLocator = Mockito.mock(PackageFileLocator.class);
+        packageCreator.npmRegistryFacade = Mockito.mock(NpmRegistryFacade.class);
+        packageCreator.pomService = Mockito.mock(PomService.class);
+        packageCreator.meterRegistry = new SimpleMeterRegistry();
+        packageCreator.creationWaitTimeout = Duration.ofSeconds(10);
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentColdMisses_createOnce() throws Exception {
+        Path pom = tempDir.resolve("lit-3.2.1.pom");
+        Mockito.when(packageCreator.packageFileLocator.getLocalFullPath(FileType.pom, name, "3.2.1")).thenReturn(pom);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            Files.writeString(pom, "<project/>");
+            return null;
+        }).when(packageCreator.pomService).createAndSavePom(Mockito.any(), Mockito.eq(pom));
+
+        CountDownLatch joined = countJoins(7);
+
+        List<Future<Path>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> packageCreator.getFromCacheOrCreate(FileType.pom, name, "3.2.1")));
+        }
+        // All followers joined the leader before it is released
+        assertTrue(joined.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        for (Future<Path> result : results) {
+            assertSame(pom, result.get(5, TimeUnit.SECONDS));
+        }
+
+        Mockito.verify(packageCreator.pomService, Mockito.times(1)).createAndSavePom(Mockito.any(), Mockito.eq(pom));
+        double created = packageCreator.meterRegistry.counter("mvnpm.package.creation", "type", "pom").count();
+        double coalesced = packageCreator.meterRegistry.counter("mvnpm.package.creation.coalesced", "type", "pom").count();
+        assertEquals(1, created);
+        assertEquals(8, created + coalesced, "Every request either created or waited");
+    }
+
+    @Test
+    void leaderFailure_propagatesToFollowers() throws Exception {
+        Path pom = tempDir.resolve("lit-3.2.2.pom");
+        Mockito.when(packageCreator.packageFileLocator.getLocalFullPath(FileType.pom, name, "3.2.2")).thenReturn(pom);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            throw new IllegalStateException("npm is down");
+        }).when(packageCreator.pomService).createAndSavePom(Mockito.any(), Mockito.eq(pom));
+        CountDownLatch joined = countJoins(1);
+
+        Future<Path> leader = executor.submit(() -> packageCreator.getFromCacheOrCreate(FileType.pom, name, "3.2.2"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<Path> follower = executor.submit(() -> packageCreator.getFromCacheOrCreate(FileType.pom, name, "3.2.2"));
+        assertTrue(joined.await(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        for (Future<Path> result : List.of(leader, follower)) {
+            Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertEquals(IllegalStateException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    void leaderError_propagatesToFollowers() throws Exception {
+        Path pom = tempDir.resolve("lit-3.2.3.pom");
+        Mockito.when(packageCreator.packageFileLocator.getLocalFullPath(FileType.pom, name, "3.2.3")).thenReturn(pom);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            throw new OutOfMemoryError("Java heap space");
+        }).when(packageCreator.pomService).createAndSavePom(Mockito.any(), Mockito.eq(pom));
+        CountDownLatch joined = countJoins(1);
+
+        Future<Path> leader = executor.submit(() -> packageCreator.getFromCacheOrCreate(FileType.pom, name, "3.2.3"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<Path> follower = executor.submit(() -> packageCreator.getFromCacheOrCreate(FileType.pom, name, "3.2.3"));
+        assertTrue(joined.await(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        // Well before the wait timeout of 10 seconds
+        for (Future<Path> result : List.of(leader, follower)) {
+            Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertEquals(OutOfMemoryError.class, e.getCause().getClass());
+        }
+    }
+
+    /**
+     * @return counted down by every request that waits for the creation of another one
+     */
+    private CountDownLatch countJoins(int followers) {
+        CountDownLatch joined = new CountDownLatch(followers);
+        MeterRegistry registry = Mockito.spy(new SimpleMeterRegistry());
+        Mockito.doAnswer(invocation -> {
+            joined.countDown();
+            return invocation.callRealMethod();
+        }).when(registry).counter(Mockito.eq("mvnpm.package.creation.coalesced"), Mockito.any(String[].class));
+        packageCreator.meterRegistry = registry;
+        return joined;
+    }
+}
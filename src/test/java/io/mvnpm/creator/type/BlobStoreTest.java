@@ -0,0 +1,147 @@
+package io.mvnpm.creator.type;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mvnpm.creator.PackageFileLocator;
+import io.quarkus.runtime.configuration.MemorySize;
+
+class BlobStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sameContentIsDeflatedOnce() throws IOException {
+        BlobStore blobStore = newBlobStore(tempDir, 1024 * 1024);
+        byte[] contents = "export const lit = true;\n".repeat(1000).getBytes(StandardCharsets.UTF_8);
+
+        byte[] first = blobStore.deflated(contents);
+        byte[] second = blobStore.deflated(contents.clone());
+
+        assertArrayEquals(first, second);
+        assertArrayEquals(JarWriter.deflate(contents), first, "Same as deflating it");
+        assertArrayEquals(contents, inflate(first));
+        assertEquals(1, blobStore.meterRegistry.counter("mvnpm.blob-store", "result", "miss").count());
+        assertEquals(1, blobStore.meterRegistry.counter("mvnpm.blob-store", "result", "hit").count());
+        assertEquals(1, countBlobs());
+    }
+
+    @Test
+    void smallContentIsNotStored() throws IOException {
+        BlobStore blobStore = newBlobStore(tempDir, 1024 * 1024);
+        byte[] contents = "export const lit = true;".getBytes(StandardCharsets.UTF_8);
+
+        assertArrayEquals(contents, inflate(blobStore.deflated(contents)));
+        assertEquals(0, countBlobs());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() throws IOException {
+        BlobStore blobStore = newBlobStore(tempDir, 20 * 1024);
+        Random random = new Random(3);
+        for (int i = 0; i < 5; i++) {
+            byte[] contents = new byte[8 * 1024];
+            random.nextBytes(contents);
+            blobStore.deflated(contents);
+        }
+        assertEquals(2, countBlobs());
+    }
+
+    @Test
+    void disabled() throws IOException {
+        BlobStore blobStore = newBlobStore(tempDir, 1024 * 1024);
+        blobStore.enabled = false;
+        byte[] contents = "export const lit = true;\n".repeat(1000).getBytes(StandardCharsets.UTF_8);
+
+        assertArrayEquals(contents, inflate(blobStore.deflated(contents)));
+        assertFalse(Files.exists(tempDir.resolve("blobs")));
+    }
+
+    @Test
+    void bigContentIsNotStored() throws IOException {
+        BlobStore blobStore = newBlobStore(tempDir, 1024 * 1024);
+        byte[] contents = "export const lit = true;\n".repeat(5000).getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(blobStore.accepts(contents.length));
+        assertArrayEquals(contents, inflate(blobStore.deflated(contents)));
+        assertEquals(0, countBlobs());
+    }
+
+    @Test
+    void damagedBlobIsReplaced() throws IOException {
+        BlobStore blobStore = newBlobStore(tempDir, 1024 * 1024);
+        byte[] contents = "export const lit = true;\n".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        byte[] deflated = blobStore.deflated(contents);
+        Path blob;
+        try (Stream<Path> files = Files.walk(tempDir.resolve("blobs"))) {
+            blob = files.filter(Files::isRegularFile).findFirst().orElseThrow();
+        }
+        Files.write(blob, Arrays.copyOf(deflated, deflated.length / 2));
+
+        assertArrayEquals(deflated, blobStore.deflated(contents));
+        assertEquals(1, blobStore.meterRegistry.counter("mvnpm.blob-store", "result", "corrupt").count());
+        assertArrayEquals(deflated, Files.readAllBytes(blob), "Stored again");
+    }
+
+    @Test
+    void inflatesTo() {
+        byte[] contents = "export const lit = true;\n".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        byte[] deflated = JarWriter.deflate(contents);
+        byte[] other = contents.clone();
+        other[other.length - 1] = 'x';
+
+        assertTrue(BlobStore.inflatesTo(deflated, contents));
+        assertFalse(BlobStore.inflatesTo(deflated, other));
+        assertFalse(BlobStore.inflatesTo(deflated, Arrays.copyOf(contents, contents.length - 1)));
+        assertFalse(BlobStore.inflatesTo(Arrays.copyOf(deflated, deflated.length - 1), contents));
+        assertFalse(BlobStore.inflatesTo(new byte[] { 1, 2, 3 }, contents));
+    }
+
+    static BlobStore newBlobStore(Path cacheDir, long maxSize) {
+        BlobStore blobStore = new BlobStore();
+        blobStore.packageFileLocator = Mockito.mock(PackageFileLocator.class);
+        Mockito.when(blobStore.packageFileLocator.getCacheDir()).thenReturn(cacheDir);
+        blobStore.meterRegistry = new SimpleMeterRegistry();
+        blobStore.enabled = true;
+        blobStore.minSize = new MemorySize(BigInteger.valueOf(1024));
+        blobStore.maxEntrySize = new MemorySize(BigInteger.valueOf(64 * 1024));
+        blobStore.maxSize = new MemorySize(BigInteger.valueOf(maxSize));
+        return blobStore;
+    }
+
+    private long countBlobs() throws IOException {
+        Path blobs = tempDir.resolve("blobs");
+        if (!Files.exists(blobs)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(blobs)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static byte[] inflate(byte[] deflated) throws IOException {
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(deflated), new Inflater(true))) {
+            return in.readAllBytes();
+        }
+    }
+}
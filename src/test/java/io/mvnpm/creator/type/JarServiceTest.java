@@ -2,10 +2,47 @@ package io.mvnpm.creator.type;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mvnpm.creator.utils.FileUtil;
+import io.mvnpm.creator.utils.ImportMapUtil;
+import io.mvnpm.creator.utils.Reproducible;
+import io.mvnpm.importmap.Location;
+import io.mvnpm.npm.model.Dist;
+import io.mvnpm.npm.model.NameParser;
+import io.mvnpm.npm.model.Package;
+import io.quarkus.runtime.configuration.MemorySize;
 
 class JarServiceTest {
 
+    @TempDir
+    Path tempDir;
+
     @Test
     void matcherTest() {
         assertFalse(JarService.matches(JarService.FILES_TO_EXCLUDE, "foo.js"));
@@ -23,4 +60,274 @@ class JarServiceTest {
         assertTrue(JarService.matches(JarService.FILES_TO_TGZ, "bar.d.ts"));
     }
 
+    @Test
+    void tgzToJar() throws IOException {
+        byte[] bigJs = new byte[200_000];
+        new Random(7).nextBytes(bigJs);
+        byte[] packageJson = "{\"name\": \"lit\", \"version\": \"3.1.3\", \"module\": \"index.js\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        Path tgz = createTgz(Map.of(
+                "package/package.json", packageJson,
+                "package/index.js", bigJs,
+                "package/index.d.ts", "export {};".getBytes(StandardCharsets.UTF_8),
+                "package/README.md", "# lit".getBytes(StandardCharsets.UTF_8)));
+        Path pom = Files.writeString(tempDir.resolve("lit-3.1.3.pom"), "<project/>");
+        Path jar = tempDir.resolve("lit-3.1.3.jar");
+
+        newJarService().createAndSaveJar(litPackage(), jar, pom, tgz);
+
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            assertArrayEquals(bigJs, read(zip, "META-INF/resources/_static/lit/3.1.3/index.js"));
+            assertArrayEquals(packageJson, read(zip, "META-INF/resources/_static/lit/3.1.3/package.json"));
+            assertArrayEquals("<project/>".getBytes(StandardCharsets.UTF_8),
+                    read(zip, "META-INF/maven/org.mvnpm/lit/pom.xml"));
+            assertNull(zip.getEntry("META-INF/resources/_static/lit/3.1.3/README.md"), "Excluded");
+            assertNull(zip.getEntry("META-INF/resources/_static/lit/3.1.3/index.d.ts"), "Only in the .more.tgz");
+            assertNotNull(zip.getEntry(JarService.MVNPM_MORE_ARCHIVE));
+            assertNotNull(zip.getEntry(Location.IMPORTMAP_PATH));
+        }
+    }
+
+    @Test
+    void sourceJarFromTheSameRead() throws IOException {
+        byte[] js = "export const lit = true;".getBytes(StandardCharsets.UTF_8);
+        byte[] readme = "# lit".getBytes(StandardCharsets.UTF_8);
+        byte[] png = new byte[300_000];
+        new Random(13).nextBytes(png);
+        Path tgz = createTgz(Map.of("package/index.js", js, "package/README.md", readme, "package/logo.png", png));
+        Path pom = Files.writeString(tempDir.resolve("lit-3.1.3.pom"), "<project/>");
+        JarService jarService = newJarService();
+        jarService.sourceService = new SourceService();
+        jarService.sourceService.hashService = new HashService();
+        jarService.sourceService.hashService.ascService = new AscService();
+
+        jarService.createAndSaveJar(litPackage(), tempDir.resolve("lit-3.1.3.jar"), pom, tgz);
+
+        Path sourceJar = tempDir.resolve("lit-3.1.3-sources.jar");
+        try (ZipFile zip = new ZipFile(sourceJar.toFile())) {
+            assertArrayEquals(js, read(zip, "package/index.js"));
+            assertArrayEquals(readme, read(zip, "package/README.md"), "Sources have everything");
+            // Streamed, and STORED as it is compressed already
+            assertArrayEquals(png, read(zip, "package/logo.png"));
+            assertEquals(ZipEntry.STORED, zip.getEntry("package/logo.png").getMethod());
+        }
+        // Hashed from the finished file
+        Path copy = Files.copy(sourceJar, tempDir.resolve("copy.jar"));
+        assertEquals(Files.readString(FileUtil.createSha1(copy)),
+                Files.readString(tempDir.resolve("lit-3.1.3-sources.jar.sha1")));
+        assertEquals(Files.readString(FileUtil.createMd5(copy)),
+                Files.readString(tempDir.resolve("lit-3.1.3-sources.jar.md5")));
+    }
+
+    @Test
+    void parallelDeflateGivesTheSameJar() throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("package/package.json", "{\"name\": \"lit\"}".getBytes(StandardCharsets.UTF_8));
+        Random random = new Random(11);
+        for (int i = 0; i < 40; i++) {
+            byte[] bytes = new byte[random.nextInt(50_000)];
+            random.nextBytes(bytes);
+            files.put("package/random" + i + ".js", bytes);
+            files.put("package/text" + i + ".js", ("export const v" + i + " = 1;\n").repeat(i * 100)
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        files.put("package/empty.js", new byte[0]);
+        files.put("package/font.woff2", "not really a font".getBytes(StandardCharsets.UTF_8));
+        byte[] wasm = new byte[8 * 1024];
+        random.nextBytes(wasm);
+        files.put("package/module.wasm", wasm);
+        // Over the max parallel entry size, so streamed inline in between the deflated ones
+        files.put("package/big.js", "export const big = 1;\n".repeat(60_000).getBytes(StandardCharsets.UTF_8));
+        files.put("package/after-big.js", "export const after = 1;\n".repeat(100).getBytes(StandardCharsets.UTF_8));
+        Path tgz = createTgz(files);
+        Path pom = Files.writeString(tempDir.resolve("lit-3.1.3.pom"), "<project/>");
+        Path sequentialJar = tempDir.resolve("sequential/lit-3.1.3.jar");
+        Path parallelJar = tempDir.resolve("parallel/lit-3.1.3.jar");
+
+        JarService jarService = newJarService();
+        jarService.parallelThreshold = new MemorySize(BigInteger.valueOf(1024));
+        Package big = litPackage(new Dist(null, null, null, files.size(), 4_000_000, null));
+        try {
+            assertFalse(jarService.isParallel(litPackage()));
+            assertTrue(jarService.isParallel(big));
+            jarService.createAndSaveJar(litPackage(), sequentialJar, pom, tgz);
+            jarService.createAndSaveJar(big, parallelJar, pom, tgz);
+        } finally {
+            jarService.shutdown();
+        }
+
+        try (var sequential = new org.apache.commons.compress.archivers.zip.ZipFile(sequentialJar.toFile());
+                var parallel = new org.apache.commons.compress.archivers.zip.ZipFile(parallelJar.toFile())) {
+            List<ZipArchiveEntry> expected = Collections.list(sequential.getEntriesInPhysicalOrder());
+            List<ZipArchiveEntry> actual = Collections.list(parallel.getEntriesInPhysicalOrder());
+            assertEquals(expected.stream().map(ZipArchiveEntry::getName).toList(),
+                    actual.stream().map(ZipArchiveEntry::getName).toList());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getCrc(), actual.get(i).getCrc());
+                assertEquals(expected.get(i).getMethod(), actual.get(i).getMethod());
+                assertEquals(expected.get(i).getDataOffset(), actual.get(i).getDataOffset(), expected.get(i).getName());
+                assertArrayEquals(sequential.getRawInputStream(expected.get(i)).readAllBytes(),
+                        parallel.getRawInputStream(actual.get(i)).readAllBytes(), expected.get(i).getName());
+            }
+            // Already compressed, by name and by content
+            String root = "META-INF/resources/_static/lit/3.1.3/";
+            assertEquals(ZipEntry.STORED, sequential.getEntry(root + "font.woff2").getMethod());
+            assertEquals(ZipEntry.STORED, sequential.getEntry(root + "module.wasm").getMethod());
+            assertEquals(ZipEntry.DEFLATED, sequential.getEntry(root + "text39.js").getMethod());
+        }
+    }
+
+    @Test
+    void sameInputGivesTheSameJar() throws IOException {
+        Path tgz = createTgz(Map.of(
+                "package/package.json", "{\"name\": \"lit\"}".getBytes(StandardCharsets.UTF_8),
+                "package/index.js", "export const lit = true;".getBytes(StandardCharsets.UTF_8),
+                "package/index.d.ts", "export {};".getBytes(StandardCharsets.UTF_8)));
+        Path pom = Files.writeString(tempDir.resolve("lit-3.1.3.pom"), "<project/>");
+        JarService jarService = newJarService();
+        jarService.sourceService = new SourceService();
+        jarService.sourceService.hashService = new HashService();
+        jarService.sourceService.hashService.ascService = new AscService();
+
+        Path sourceJar = tempDir.resolve("lit-3.1.3-sources.jar");
+        Path firstJar = tempDir.resolve("first/lit-3.1.3.jar");
+        jarService.createAndSaveJar(litPackage(), firstJar, pom, tgz);
+        Path firstSourceJar = Files.move(sourceJar, tempDir.resolve("first/lit-3.1.3-sources.jar"));
+        Path secondJar = tempDir.resolve("second/lit-3.1.3.jar");
+        jarService.createAndSaveJar(litPackage(), secondJar, pom, tgz);
+
+        assertArrayEquals(Files.readAllBytes(firstJar), Files.readAllBytes(secondJar));
+        assertArrayEquals(Files.readAllBytes(firstSourceJar), Files.readAllBytes(sourceJar));
+        // The time of the package, not when the jar was created
+        long packed = Reproducible.zipTime(PACKED);
+        try (ZipFile zip = new ZipFile(firstJar.toFile())) {
+            assertTrue(zip.stream().allMatch(e -> e.getTime() == packed));
+        }
+        try (ZipFile zip = new ZipFile(sourceJar.toFile())) {
+            assertTrue(zip.stream().allMatch(e -> e.getTime() == packed));
+        }
+        Path javadoc = jarService.createEmptyJar(tempDir.resolve("lit-3.1.3.jar"), "-javadoc.jar");
+        try (ZipFile zip = new ZipFile(javadoc.toFile())) {
+            assertEquals(packed, zip.getEntry("README.md").getTime());
+        }
+    }
+
+    @Test
+    void bigMoreArchiveSpillsToAFile() throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("package/package.json", "{\"name\": \"lit\"}".getBytes(StandardCharsets.UTF_8));
+        Random random = new Random(5);
+        for (int i = 0; i < 20; i++) {
+            byte[] types = new byte[10_000];
+            random.nextBytes(types);
+            files.put("package/types/index" + i + ".d.ts", types);
+        }
+        Path tgz = createTgz(files);
+        Path pom = Files.writeString(tempDir.resolve("lit-3.1.3.pom"), "<project/>");
+        Path inMemoryJar = tempDir.resolve("memory/lit-3.1.3.jar");
+        Path spilledJar = tempDir.resolve("file/lit-3.1.3.jar");
+
+        JarService jarService = newJarService();
+        jarService.createAndSaveJar(litPackage(), inMemoryJar, pom, tgz);
+        jarService.moreArchiveThreshold = new MemorySize(BigInteger.valueOf(16 * 1024));
+        jarService.createAndSaveJar(litPackage(), spilledJar, pom, tgz);
+
+        try (ZipFile inMemory = new ZipFile(inMemoryJar.toFile());
+                ZipFile spilled = new ZipFile(spilledJar.toFile())) {
+            assertArrayEquals(read(inMemory, JarService.MVNPM_MORE_ARCHIVE), read(spilled, JarService.MVNPM_MORE_ARCHIVE));
+            try (TarArchiveInputStream tar = new TarArchiveInputStream(
+                    new GzipCompressorInputStream(spilled.getInputStream(spilled.getEntry(JarService.MVNPM_MORE_ARCHIVE))))) {
+                int count = 0;
+                for (TarArchiveEntry entry = tar.getNextEntry(); entry != null; entry = tar.getNextEntry()) {
+                    assertArrayEquals(files.get("package/types/index" + count + ".d.ts"), tar.readAllBytes());
+                    count++;
+                }
+                assertEquals(20, count);
+            }
+        }
+        assertEquals(1, jarService.meterRegistry.get("mvnpm.jar.more-archive.size").tag("storage", "memory").summary()
+                .count());
+        assertEquals(1, jarService.meterRegistry.get("mvnpm.jar.more-archive.size").tag("storage", "file").summary()
+                .count());
+        try (var leftOver = Files.list(spilledJar.getParent())) {
+            assertEquals(List.of(spilledJar), leftOver.toList(), "The temp file is gone");
+        }
+    }
+
+    @Test
+    void jarFromTheBlobStore() throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("package/package.json", "{\"name\": \"lit\"}".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < 10; i++) {
+            files.put("package/text" + i + ".js", ("export const v" + i + " = 1;\n").repeat(500)
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        // Over the max entry size, so streamed past the store
+        files.put("package/big.js", "export const big = 1;\n".repeat(10_000).getBytes(StandardCharsets.UTF_8));
+        Path tgz = createTgz(files);
+        Path pom = Files.writeString(tempDir.resolve("lit-3.1.3.pom"), "<project/>");
+        Path plainJar = tempDir.resolve("plain/lit-3.1.3.jar");
+        Path firstJar = tempDir.resolve("first/lit-3.1.3.jar");
+        Path secondJar = tempDir.resolve("second/lit-3.1.3.jar");
+
+        JarService jarService = newJarService();
+        jarService.createAndSaveJar(litPackage(), plainJar, pom, tgz);
+        jarService.blobStore = BlobStoreTest.newBlobStore(tempDir.resolve("cache"), 1024 * 1024);
+        jarService.createAndSaveJar(litPackage(), firstJar, pom, tgz);
+        jarService.createAndSaveJar(litPackage(), secondJar, pom, tgz);
+
+        assertArrayEquals(Files.readAllBytes(plainJar), Files.readAllBytes(firstJar));
+        assertArrayEquals(Files.readAllBytes(plainJar), Files.readAllBytes(secondJar));
+        assertEquals(10, jarService.blobStore.meterRegistry.counter("mvnpm.blob-store", "result", "miss").count());
+        assertEquals(10, jarService.blobStore.meterRegistry.counter("mvnpm.blob-store", "result", "hit").count());
+    }
+
+    static JarService newJarService() throws IOException {
+        JarService jarService = new JarService();
+        jarService.parallelThreshold = new MemorySize(BigInteger.valueOf(8 * 1024 * 1024));
+        jarService.parallelThreads = 4;
+        jarService.moreArchiveThreshold = new MemorySize(BigInteger.valueOf(4 * 1024 * 1024));
+        jarService.meterRegistry = new SimpleMeterRegistry();
+        jarService.importMapUtil = Mockito.mock(ImportMapUtil.class);
+        jarService.sourceService = Mockito.mock(SourceService.class);
+        Mockito.when(jarService.importMapUtil.getImportMapRoot(Mockito.any())).thenReturn("/_static/lit/3.1.3/");
+        Mockito.when(jarService.importMapUtil.readPackageJson(Mockito.anyString(), Mockito.any())).thenCallRealMethod();
+        Mockito.when(jarService.importMapUtil.createImportMap(Mockito.any(), Mockito.anyMap()))
+                .thenReturn("{}".getBytes(StandardCharsets.UTF_8));
+        return jarService;
+    }
+
+    static Package litPackage() {
+        return litPackage(null);
+    }
+
+    static Package litPackage(Dist dist) {
+        return new Package(null, NameParser.fromNpmProject("lit"), "3.1.3", null, null, null, null, null, null,
+                null, "index.js", null, null, null, null, dist);
+    }
+
+    private Path createTgz(Map<String, byte[]> files) throws IOException {
+        Path tgz = tempDir.resolve("lit-3.1.3.tgz");
+        try (OutputStream out = Files.newOutputStream(tgz);
+                GzipCompressorOutputStream gzip = new GzipCompressorOutputStream(out);
+                TarArchiveOutputStream tar = new TarArchiveOutputStream(gzip)) {
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                TarArchiveEntry entry = new TarArchiveEntry(file.getKey());
+                entry.setSize(file.getValue().length);
+                entry.setModTime(Date.from(PACKED));
+                tar.putArchiveEntry(entry);
+                tar.write(file.getValue());
+                tar.closeArchiveEntry();
+            }
+        }
+        return tgz;
+    }
+
+    private static final Instant PACKED = Instant.parse("2015-06-01T12:00:00Z");
+
+    private static byte[] read(ZipFile zip, String name) throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        assertNotNull(entry, name);
+        return zip.getInputStream(entry).readAllBytes();
+    }
 }
@@ -0,0 +1,135 @@
+package io.mvnpm.creator.type;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.mvnpm.creator.utils.Sidecars;
+import io.mvnpm.npm.model.Dist;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.core.buffer.Buffer;
+import io.vertx.mutiny.core.http.HttpServer;
+
+class TgzServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    Vertx vertx;
+    HttpServer stub;
+    TgzService tgzService;
+    byte[] tarball;
+
+    @BeforeEach
+    void setUp() {
+        tarball = new byte[300_000];
+        new Random(42).nextBytes(tarball);
+        vertx = Vertx.vertx();
+        stub = vertx.createHttpServer()
+                .requestHandler(request -> {
+                    if (request.path().equals("/lit/-/lit-3.1.3.tgz")) {
+                        request.response().endAndForget(Buffer.buffer(tarball));
+                    } else {
+                        request.response().setStatusCode(404).endAndForget("Not found");
+                    }
+                })
+                .listen(0).await().atMost(Duration.ofSeconds(5));
+
+        tgzService = new TgzService();
+        tgzService.vertx = vertx;
+        tgzService.connectTimeout = Duration.ofSeconds(5);
+        tgzService.readTimeout = Duration.ofSeconds(5);
+        tgzService.downloadTimeout = Duration.ofSeconds(30);
+        tgzService.maxConnections = 4;
+        tgzService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tgzService.shutdown();
+        vertx.closeAndAwait();
+    }
+
+    @Test
+    void downloadWithSha512Integrity() throws Exception {
+        String integrity = "sha512-" + Base64.getEncoder().encodeToString(digest("SHA-512", tarball));
+        Path local = tempDir.resolve("lit-3.1.3.tgz");
+
+        tgzService.download(dist(integrity, null, "/lit/-/lit-3.1.3.tgz"), local).await().atMost(Duration.ofSeconds(10));
+
+        assertArrayEquals(tarball, Files.readAllBytes(local));
+    }
+
+    @Test
+    void downloadWithSha1Shasum() throws Exception {
+        String shasum = HexFormat.of().formatHex(digest("SHA-1", tarball));
+        Path local = tempDir.resolve("lit-3.1.3.tgz");
+
+        tgzService.download(dist(null, shasum, "/lit/-/lit-3.1.3.tgz"), local).await().atMost(Duration.ofSeconds(10));
+
+        assertArrayEquals(tarball, Files.readAllBytes(local));
+    }
+
+    @Test
+    void hashesComputedWhileDownloading() throws Exception {
+        Path local = tempDir.resolve("lit-3.1.3.tgz");
+        Sidecars sidecars = Sidecars.of(local, null);
+
+        tgzService.download(dist(null, null, "/lit/-/lit-3.1.3.tgz"), local, sidecars).await().atMost(Duration.ofSeconds(10));
+        sidecars.write();
+
+        assertEquals(HexFormat.of().formatHex(digest("SHA-256", tarball)),
+                Files.readString(tempDir.resolve("lit-3.1.3.tgz.sha256")));
+        assertEquals(HexFormat.of().formatHex(digest("SHA-1", tarball)),
+                Files.readString(tempDir.resolve("lit-3.1.3.tgz.sha1")));
+    }
+
+    @Test
+    void integrityMismatchLeavesNoFile() throws Exception {
+        String integrity = "sha512-" + Base64.getEncoder().encodeToString(digest("SHA-512", new byte[] { 1, 2, 3 }));
+        Path local = tempDir.resolve("lit-3.1.3.tgz");
+
+        assertThrows(RuntimeException.class, () -> tgzService
+                .download(dist(integrity, null, "/lit/-/lit-3.1.3.tgz"), local).await().atMost(Duration.ofSeconds(10)));
+
+        assertFalse(Files.exists(local));
+        try (var files = Files.list(tempDir)) {
+            assertTrue(files.findAny().isEmpty(), "Temp file is cleaned up");
+        }
+    }
+
+    @Test
+    void notFound() {
+        Path local = tempDir.resolve("nope-1.0.0.tgz");
+
+        assertThrows(RuntimeException.class, () -> tgzService
+                .download(dist(null, null, "/nope/-/nope-1.0.0.tgz"), local).await().atMost(Duration.ofSeconds(10)));
+
+        assertFalse(Files.exists(local));
+    }
+
+    private Dist dist(String integrity, String shasum, String path) throws Exception {
+        URL tarballUrl = new URL("http://localhost:" + stub.actualPort() + path);
+        return new Dist(integrity, shasum, tarballUrl, 1, tarball.length, null);
+    }
+
+    private static byte[] digest(String algorithm, byte[] content) throws Exception {
+        return MessageDigest.getInstance(algorithm).digest(content);
+    }
+}
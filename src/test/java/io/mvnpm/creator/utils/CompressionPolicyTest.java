@@ -0,0 +1,58 @@
+package io.mvnpm.creator.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import org.junit.jupiter.api.Test;
+
+class CompressionPolicyTest {
+
+    @Test
+    void compressedByName() {
+        assertTrue(CompressionPolicy.isCompressedByName("META-INF/resources/_static/pkg/font.woff2"));
+        assertTrue(CompressionPolicy.isCompressedByName("logo.PNG"));
+        assertTrue(CompressionPolicy.isCompressedByName("META-INF/.more.tgz"));
+        assertFalse(CompressionPolicy.isCompressedByName("index.js"));
+        assertFalse(CompressionPolicy.isCompressedByName("package.json"));
+        assertEquals(ZipEntry.STORED, CompressionPolicy.methodFor("font.woff"));
+        assertEquals(ZipEntry.DEFLATED, CompressionPolicy.methodFor("style.css"));
+    }
+
+    @Test
+    void randomBytesAreStored() {
+        byte[] bytes = new byte[8 * 1024];
+        new Random(42).nextBytes(bytes);
+        assertEquals(ZipEntry.STORED, CompressionPolicy.methodFor("module.wasm", bytes, bytes.length));
+    }
+
+    @Test
+    void textIsDeflated() {
+        byte[] bytes = "export const answer = 42;\n".repeat(500).getBytes(StandardCharsets.UTF_8);
+        assertEquals(ZipEntry.DEFLATED, CompressionPolicy.methodFor("index.js", bytes, bytes.length));
+    }
+
+    @Test
+    void smallContentIsDeflated() {
+        byte[] bytes = new byte[100];
+        new Random(42).nextBytes(bytes);
+        assertFalse(CompressionPolicy.isIncompressible(bytes, bytes.length));
+    }
+
+    @Test
+    void storedEntry() {
+        byte[] bytes = "stored".getBytes(StandardCharsets.UTF_8);
+        ZipEntry entry = CompressionPolicy.stored(new ZipEntry("a.png"), bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        assertEquals(ZipEntry.STORED, entry.getMethod());
+        assertEquals(bytes.length, entry.getSize());
+        assertEquals(bytes.length, entry.getCompressedSize());
+        assertEquals(crc.getValue(), entry.getCrc());
+    }
+}
@@ -0,0 +1,181 @@
+package io.mvnpm.creator.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CompressionPoolTest {
+
+    private static final byte[] CONTENTS = "export const lit = true;\n".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void reusesWhatIsGivenBack() {
+        CompressionPool pool = new CompressionPool(2);
+        Deflater first;
+        try (CompressionPool.Lease<Deflater> deflater = pool.deflater()) {
+            first = deflater.get();
+        }
+        try (CompressionPool.Lease<Deflater> deflater = pool.deflater()) {
+            assertSame(first, deflater.get());
+        }
+        assertEquals(1, pool.misses("deflater"));
+        assertEquals(1, pool.hits("deflater"));
+    }
+
+    @Test
+    void keepsNoMoreThanItsSize() {
+        CompressionPool pool = new CompressionPool(2);
+        CompressionPool.Lease<Deflater> a = pool.deflater();
+        CompressionPool.Lease<Deflater> b = pool.deflater();
+        CompressionPool.Lease<Deflater> c = pool.deflater();
+        a.close();
+        b.close();
+        c.close();
+        assertEquals(3, pool.misses("deflater"));
+        assertEquals(2, pool.idle("deflater"));
+        assertThrows(IllegalStateException.class, c::get);
+    }
+
+    @Test
+    void gzipReadableByTheJdk() throws IOException {
+        CompressionPool pool = new CompressionPool(2);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream out = pool.gzipOutput(gzip)) {
+            out.write(CONTENTS);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.toByteArray()))) {
+            assertArrayEquals(CONTENTS, in.readAllBytes());
+        }
+        assertEquals(1, pool.idle("deflater"));
+    }
+
+    @Test
+    void gzipFromTheJdk() throws IOException {
+        CompressionPool pool = new CompressionPool(2);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(CONTENTS);
+        }
+        for (int i = 0; i < 3; i++) {
+            try (InputStream in = pool.gzipInput(new ByteArrayInputStream(gzip.toByteArray()))) {
+                assertArrayEquals(CONTENTS, in.readAllBytes());
+            }
+        }
+        assertEquals(1, pool.misses("inflater"));
+        assertEquals(2, pool.hits("inflater"));
+    }
+
+    @Test
+    void corruptGzip() throws IOException {
+        CompressionPool pool = new CompressionPool(2);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream out = pool.gzipOutput(gzip)) {
+            out.write(CONTENTS);
+        }
+        byte[] corrupt = gzip.toByteArray();
+        corrupt[corrupt.length - 8] ^= 1;
+        try (InputStream in = pool.gzipInput(new ByteArrayInputStream(corrupt))) {
+            assertThrows(ZipException.class, in::readAllBytes);
+        }
+        assertThrows(ZipException.class, () -> pool.gzipInput(new ByteArrayInputStream(CONTENTS)));
+        assertEquals(1, pool.idle("inflater"));
+    }
+
+    @Test
+    void concatenatedGzip() throws IOException {
+        CompressionPool pool = new CompressionPool(2);
+        byte[] second = "export const second = true;\n".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        gzip.write(jdkGzip(CONTENTS));
+        gzip.write(jdkGzip(second));
+        gzip.write(jdkGzip(new byte[0]));
+        try (OutputStream out = pool.gzipOutput(gzip)) {
+            out.write(CONTENTS);
+        }
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(CONTENTS);
+        expected.write(second);
+        expected.write(CONTENTS);
+
+        try (InputStream in = pool.gzipInput(new ByteArrayInputStream(gzip.toByteArray()))) {
+            assertArrayEquals(expected.toByteArray(), in.readAllBytes());
+        }
+        // The trailers and headers then span reads of the input
+        try (InputStream in = pool.gzipInput(new TrickleInputStream(gzip.toByteArray(), 7))) {
+            assertArrayEquals(expected.toByteArray(), in.readAllBytes());
+        }
+        assertEquals(1, pool.idle("inflater"));
+    }
+
+    @Test
+    void trailingGarbage() throws IOException {
+        CompressionPool pool = new CompressionPool(2);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        gzip.write(jdkGzip(CONTENTS));
+        gzip.write("not gzip".getBytes(StandardCharsets.UTF_8));
+
+        try (InputStream in = pool.gzipInput(new ByteArrayInputStream(gzip.toByteArray()))) {
+            assertThrows(ZipException.class, in::readAllBytes);
+        }
+    }
+
+    @Test
+    void metrics() {
+        CompressionPool pool = new CompressionPool(2);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        pool.bindTo(registry);
+        pool.inflater().close();
+        pool.inflater().close();
+
+        assertEquals(1, registry.get("mvnpm.compression.pool").tags("type", "inflater", "result", "miss")
+                .functionCounter().count());
+        assertEquals(1, registry.get("mvnpm.compression.pool").tags("type", "inflater", "result", "hit")
+                .functionCounter().count());
+        assertEquals(1, registry.get("mvnpm.compression.pool.idle").tag("type", "inflater").gauge().value());
+        assertTrue(registry.get("mvnpm.compression.pool.native-memory").gauge().value() > 0);
+    }
+
+    private static byte[] jdkGzip(byte[] contents) throws IOException {
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(contents);
+        }
+        return gzip.toByteArray();
+    }
+
+    /**
+     * Gives at most a few bytes per read, as a slow network would
+     */
+    private static final class TrickleInputStream extends FilterInputStream {
+
+        private final int maxRead;
+
+        private TrickleInputStream(byte[] bytes, int maxRead) {
+            super(new ByteArrayInputStream(bytes));
+            this.maxRead = maxRead;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, maxRead));
+        }
+    }
+}
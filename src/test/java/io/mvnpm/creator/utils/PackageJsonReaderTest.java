@@ -0,0 +1,101 @@
+package io.mvnpm.creator.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.mvnpm.npm.model.Package;
+
+class PackageJsonReaderTest {
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Test
+    void sameAsTheFullPackage() throws IOException {
+        byte[] json = packageJson("@lit/reactive-element", "2.0.4").getBytes(StandardCharsets.UTF_8);
+        Package full = mapper.readValue(json, Package.class);
+        Package read = PackageJsonReader.read(json);
+
+        assertEquals(full.name().npmFullName, read.name().npmFullName);
+        assertEquals(full.name().mvnGroupId, read.name().mvnGroupId);
+        assertEquals(full.version(), read.version());
+        assertEquals(full.module(), read.module());
+        assertEquals(full.main(), read.main());
+        assertEquals(full.repository().directory(), read.repository().directory());
+        assertNull(read.license());
+        assertNull(read.dependencies());
+    }
+
+    @Test
+    void repositoryAsUrl() throws IOException {
+        Package read = PackageJsonReader.read("""
+                {"repository": "github:lit/lit", "name": "lit", "main": ["index.js"], "version": "3.1.3"}
+                """.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("lit", read.name().npmFullName);
+        assertEquals("3.1.3", read.version());
+        assertNull(read.repository());
+        assertNull(read.main(), "Not a single value");
+        assertNull(read.module());
+    }
+
+    @Test
+    void stopsOnceAllAreFound() throws IOException {
+        // The rest is not even valid, but never read
+        Package read = PackageJsonReader.read("""
+                {"name": "lit", "version": "3.1.3", "module": "lit.js", "main": "index.js",
+                 "repository": {"type": "git", "directory": "packages/lit"}, "scripts": {
+                """.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("lit.js", read.module());
+        assertEquals("packages/lit", read.repository().directory());
+    }
+
+    @Test
+    void notAnObject() {
+        assertThrows(JsonParseException.class,
+                () -> PackageJsonReader.read("[\"lit\"]".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String packageJson(String name, String version) {
+        return """
+                {
+                  "name": "%s",
+                  "version": "%s",
+                  "description": "Simple. Fast. Web Components. %s",
+                  "license": "BSD-3-Clause",
+                  "author": {"name": "Google LLC", "email": "lit@google.com"},
+                  "homepage": "https://lit.dev/",
+                  "maintainers": [{"name": "aomarks", "email": "aomarks@google.com"},
+                                  {"name": "justinfagnani", "email": "justin@fagnani.com"}],
+                  "keywords": ["lit", "web-components", "custom-elements", "shadow-dom", "templates"],
+                  "type": "module",
+                  "exports": {
+                    ".": {"types": "./development/index.d.ts", "development": "./development/index.js",
+                          "default": "./index.js"},
+                    "./decorators.js": {"types": "./development/decorators.d.ts", "default": "./decorators.js"},
+                    "./directive.js": {"types": "./development/directive.d.ts", "default": "./directive.js"}
+                  },
+                  "scripts": {"build": "wireit", "test": "wireit", "checksize": "wireit"},
+                  "files": ["/async-directive.{d.ts,d.ts.map,js,js.map}", "/decorators/", "/development/"],
+                  "dependencies": {"@lit/reactive-element": "^2.0.4", "lit-element": "^4.0.4", "lit-html": "^3.1.2"},
+                  "devDependencies": {"@lit-internal/scripts": "^1.0.1", "@webcomponents/shadycss": "^1.8.0"},
+                  "bugs": {"url": "https://github.com/lit/lit/issues"},
+                  "repository": {"type": "git", "url": "git+https://github.com/lit/lit.git",
+                                 "directory": "packages/lit"},
+                  "main": "index.js",
+                  "module": "index.js"
+                }
+                """.formatted(name, version, version);
+    }
+}
@@ -0,0 +1,80 @@
+package io.mvnpm.creator.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReproducibleTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void timeOfTheTarball() throws IOException {
+        Instant packed = Instant.parse("2015-06-01T12:00:00Z");
+        assertEquals(packed, Reproducible.timeOf(createTgz("packed.tgz", packed)));
+        // Can not be in a zip
+        assertEquals(Reproducible.DEFAULT_TIME, Reproducible.timeOf(createTgz("epoch.tgz", Instant.EPOCH)));
+        assertEquals(Reproducible.DEFAULT_TIME, Reproducible.timeOf(tempDir.resolve("missing.tgz")));
+    }
+
+    @Test
+    void zipTimeIsUtc() {
+        ZipEntry entry = new ZipEntry("index.js");
+        entry.setTime(Reproducible.zipTime(Reproducible.DEFAULT_TIME));
+        assertEquals(LocalDateTime.ofInstant(Reproducible.DEFAULT_TIME, ZoneOffset.UTC), entry.getTimeLocal());
+    }
+
+    @Test
+    void normalizedTarEntry() {
+        TarArchiveEntry entry = Reproducible.tarEntry("resources/index.d.ts", 10, Reproducible.DEFAULT_TIME);
+        assertEquals(10, entry.getSize());
+        assertEquals(0100644, entry.getMode());
+        assertEquals(0, entry.getLongUserId());
+        assertEquals("", entry.getUserName());
+        assertEquals("", entry.getGroupName());
+        assertEquals(Date.from(Reproducible.DEFAULT_TIME), entry.getModTime());
+    }
+
+    @Test
+    void propertiesWithoutDate() {
+        Properties properties = new Properties();
+        properties.setProperty("version", "3.1.3");
+        properties.setProperty("artifactId", "lit");
+        String expected = String.join(System.lineSeparator(), "#Generated by mvnpm.org", "artifactId=lit", "version=3.1.3", "");
+        assertEquals(expected, new String(Reproducible.properties(properties, "Generated by mvnpm.org"),
+                StandardCharsets.ISO_8859_1));
+    }
+
+    private Path createTgz(String name, Instant time) throws IOException {
+        Path tgz = tempDir.resolve(name);
+        byte[] contents = "{}".getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = Files.newOutputStream(tgz);
+                GzipCompressorOutputStream gzip = new GzipCompressorOutputStream(out);
+                TarArchiveOutputStream tar = new TarArchiveOutputStream(gzip)) {
+            TarArchiveEntry entry = new TarArchiveEntry("package/package.json");
+            entry.setSize(contents.length);
+            entry.setModTime(Date.from(time));
+            tar.putArchiveEntry(entry);
+            tar.write(contents);
+            tar.closeArchiveEntry();
+        }
+        return tgz;
+    }
+}
@@ -0,0 +1,105 @@
+package io.mvnpm.creator.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pgpainless.PGPainless;
+import org.pgpainless.key.generation.type.rsa.RsaLength;
+import org.pgpainless.sop.SOPImpl;
+
+import sop.Verification;
+
+class SidecarsTest {
+
+    static PGPSecretKeyRing secretKeyRing;
+    static PGPPublicKeyRing publicKeyRing;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void generateTestKey() throws Exception {
+        secretKeyRing = PGPainless.generateKeyRing().simpleRsaKeyRing("test@mvnpm.io", RsaLength._2048);
+        publicKeyRing = PGPainless.extractCertificate(secretKeyRing);
+    }
+
+    @Test
+    void computedWhileWriting() throws Exception {
+        byte[] content = new byte[300_000];
+        Arrays.fill(content, (byte) 'A');
+        Path file = tempDir.resolve("lit-3.1.3.jar");
+        Sidecars sidecars = Sidecars.of(file, secretKeyRing);
+        try (OutputStream out = sidecars.tee(Files.newOutputStream(file))) {
+            out.write(content, 0, 1000);
+            out.write(content[1000]);
+            out.write(content, 1001, content.length - 1001);
+        }
+        List<Path> written = sidecars.write();
+
+        assertEquals(content.length, sidecars.size());
+        assertEquals(9, written.size(), "4 hashes, asc and the hashes of the asc");
+        written.forEach(p -> assertTrue(Files.exists(p), p.toString()));
+        assertHashesOf(file);
+        assertHashesOf(tempDir.resolve("lit-3.1.3.jar.asc"));
+        assertSignatureOf(file, content);
+    }
+
+    @Test
+    void createdFromOneRead() throws Exception {
+        byte[] content = "<project/>".getBytes(StandardCharsets.UTF_8);
+        Path file = Files.write(tempDir.resolve("lit-3.1.3.pom"), content);
+
+        Sidecars.createFor(file, secretKeyRing);
+
+        assertHashesOf(file);
+        assertSignatureOf(file, content);
+    }
+
+    @Test
+    void onlyHashesWithoutKey() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("lit-3.1.3.pom"), "<project/>");
+
+        List<Path> written = Sidecars.createFor(file, null);
+
+        assertEquals(4, written.size());
+        assertHashesOf(file);
+        assertFalse(Files.exists(tempDir.resolve("lit-3.1.3.pom.asc")));
+    }
+
+    private void assertHashesOf(Path file) throws Exception {
+        // Same as the hashes FileUtil creates from reading the file
+        Path copy = Files.copy(file, tempDir.resolve("copy-" + file.getFileName()));
+        assertEquals(Files.readString(FileUtil.createSha1(copy)), Files.readString(Path.of(file + ".sha1")));
+        assertEquals(Files.readString(FileUtil.createMd5(copy)), Files.readString(Path.of(file + ".md5")));
+        byte[] content = Files.readAllBytes(file);
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)),
+                Files.readString(Path.of(file + ".sha256")));
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-512").digest(content)),
+                Files.readString(Path.of(file + ".sha512")));
+    }
+
+    private void assertSignatureOf(Path file, byte[] content) throws Exception {
+        byte[] certBytes = PGPainless.asciiArmor(publicKeyRing).getBytes(StandardCharsets.UTF_8);
+        List<Verification> verifications = new SOPImpl().detachedVerify()
+                .cert(new ByteArrayInputStream(certBytes))
+                .signatures(Files.newInputStream(Path.of(file + ".asc")))
+                .data(new ByteArrayInputStream(content));
+        assertFalse(verifications.isEmpty(), "Signature should be valid");
+    }
+}
@@ -0,0 +1,51 @@
+package io.mvnpm.maven;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+class ByteRangeTest {
+
+    @Test
+    void singleRanges() {
+        assertEquals(Optional.of(List.of(new ByteRange(0, 99))), ByteRange.parse("bytes=0-99", 1000));
+        assertEquals(Optional.of(List.of(new ByteRange(500, 999))), ByteRange.parse("bytes=500-", 1000));
+        assertEquals(Optional.of(List.of(new ByteRange(900, 999))), ByteRange.parse("bytes=-100", 1000));
+        assertEquals(Optional.of(List.of(new ByteRange(0, 999))), ByteRange.parse("bytes=-5000", 1000));
+        assertEquals(Optional.of(List.of(new ByteRange(990, 999))), ByteRange.parse("bytes=990-5000", 1000));
+    }
+
+    @Test
+    void multipleRanges() {
+        assertEquals(Optional.of(List.of(new ByteRange(0, 9), new ByteRange(20, 29))),
+                ByteRange.parse("bytes=0-9, 20-29", 1000));
+    }
+
+    @Test
+    void unsatisfiable() {
+        assertEquals(Optional.of(List.of()), ByteRange.parse("bytes=1000-", 1000));
+        assertEquals(Optional.of(List.of()), ByteRange.parse("bytes=-0", 1000));
+        assertEquals(Optional.of(List.of()), ByteRange.parse("bytes=0-", 0));
+    }
+
+    @Test
+    void ignored() {
+        assertTrue(ByteRange.parse(null, 1000).isEmpty());
+        assertTrue(ByteRange.parse("items=0-9", 1000).isEmpty());
+        assertTrue(ByteRange.parse("bytes=abc", 1000).isEmpty());
+        assertTrue(ByteRange.parse("bytes=9-0", 1000).isEmpty());
+        String tooMany = "bytes=0-1,2-3,4-5,6-7,8-9,10-11,12-13,14-15,16-17,18-19,20-21,22-23,24-25,26-27,28-29,30-31,32-33";
+        assertTrue(ByteRange.parse(tooMany, 1000).isEmpty());
+    }
+
+    @Test
+    void contentRange() {
+        assertEquals("bytes 0-99/1000", new ByteRange(0, 99).toContentRange(1000));
+        assertEquals("bytes */1000", ByteRange.unsatisfiedContentRange(1000));
+        assertEquals(100, new ByteRange(0, 99).length());
+    }
+}
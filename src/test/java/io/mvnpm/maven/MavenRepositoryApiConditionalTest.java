@@ -0,0 +1,165 @@
+package io.mvnpm.maven;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.mvnpm.Constants;
+import io.mvnpm.creator.FileType;
+import io.mvnpm.creator.PackageCreator;
+import io.mvnpm.mavencentral.sync.CentralSyncItem;
+import io.mvnpm.mavencentral.sync.CentralSyncService;
+import io.mvnpm.mavencentral.sync.Stage;
+import io.mvnpm.npm.model.Name;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.RestAssured;
+
+/**
+ * The validators come from the sha1 sidecar (ETag) and the file mtime (Last-Modified)
+ */
+@QuarkusTest
+class MavenRepositoryApiConditionalTest {
+
+    @InjectMock
+    CentralSyncService centralSyncService;
+
+    @InjectMock
+    MavenRepositoryService mavenRepositoryService;
+
+    @InjectMock
+    PackageCreator packageCreator;
+
+    private Path dir;
+    private Path jar;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("mvnpm-conditional-test");
+        jar = Files.writeString(dir.resolve("lit-3.1.2.jar"), "the jar");
+        Files.setLastModifiedTime(jar, FileTime.from(MODIFIED));
+        CentralSyncItem item = new CentralSyncItem();
+        item.stage = Stage.INIT;
+        Mockito.when(centralSyncService.checkReleaseInDbAndCentral(Mockito.eq("org.mvnpm"), Mockito.eq("lit"),
+                Mockito.eq("3.1.2"), Mockito.anyBoolean()))
+                .thenReturn(item);
+        Mockito.when(mavenRepositoryService.getPath(Mockito.any(Name.class), Mockito.eq("3.1.2"), Mockito.eq(FileType.jar)))
+                .thenReturn(jar);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (var files = Files.walk(dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void etag_comesFromTheSha1File() throws IOException {
+        writeSha1(SHA1 + "\n");
+
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .when().get(JAR_URL)
+                .then()
+                .statusCode(200)
+                .header("ETag", "\"" + SHA1 + "\"");
+    }
+
+    @Test
+    void lastModified_comesFromTheFile() {
+        String lastModified = RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .when().get(JAR_URL)
+                .then()
+                .statusCode(200)
+                .extract().header("Last-Modified");
+
+        assertEquals(MODIFIED, Instant.from(DateTimeFormatter.RFC_1123_DATE_TIME.parse(lastModified)));
+    }
+
+    @Test
+    void ifNoneMatch_isNotModified() throws IOException {
+        writeSha1(SHA1);
+
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .header("If-None-Match", "\"" + SHA1 + "\"")
+                .when().get(JAR_URL)
+                .then()
+                .statusCode(304);
+    }
+
+    @Test
+    void ifNoneMatch_otherEtag_isServed() throws IOException {
+        writeSha1(SHA1);
+
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .header("If-None-Match", "\"0000000000000000000000000000000000000000\"")
+                .when().get(JAR_URL)
+                .then()
+                .statusCode(200)
+                .body(Matchers.equalTo("the jar"));
+    }
+
+    @Test
+    void ifModifiedSince_isNotModified() {
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .header("If-Modified-Since", httpDate(MODIFIED))
+                .when().get(JAR_URL)
+                .then()
+                .statusCode(304);
+    }
+
+    @Test
+    void ifModifiedSince_before_isServed() {
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .header("If-Modified-Since", httpDate(MODIFIED.minusSeconds(3600)))
+                .when().get(JAR_URL)
+                .then()
+                .statusCode(200)
+                .body(Matchers.equalTo("the jar"));
+    }
+
+    @Test
+    void missingSha1_hasNoEtag() {
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .when().get(JAR_URL)
+                .then()
+                .statusCode(200)
+                .header("ETag", Matchers.nullValue())
+                .header("Last-Modified", Matchers.notNullValue());
+    }
+
+    @Test
+    void missingSha1_ifNoneMatch_isServed() {
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .header("If-None-Match", "\"" + SHA1 + "\"")
+                .when().get(JAR_URL)
+                .then()
+                .statusCode(200)
+                .body(Matchers.equalTo("the jar"));
+    }
+
+    private void writeSha1(String sha1) throws IOException {
+        Files.writeString(Path.of(jar + Constants.DOT_SHA1), sha1, StandardCharsets.US_ASCII);
+    }
+
+    private static String httpDate(Instant instant) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atZone(ZoneOffset.UTC));
+    }
+
+    private static final String JAR_URL = "/maven2/org/mvnpm/lit/3.1.2/lit-3.1.2.jar";
+    private static final String SHA1 = "1f0d3c6e2b3a4d5e6f708192a3b4c5d6e7f80912";
+    private static final Instant MODIFIED = Instant.parse("2024-03-01T10:15:30Z");
+}
@@ -0,0 +1,196 @@
+package io.mvnpm.maven;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.mvnpm.Constants;
+import io.mvnpm.creator.FileType;
+import io.mvnpm.creator.PackageCreator;
+import io.mvnpm.mavencentral.sync.CentralSyncItem;
+import io.mvnpm.mavencentral.sync.CentralSyncService;
+import io.mvnpm.mavencentral.sync.Stage;
+import io.mvnpm.npm.model.Name;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+
+/**
+ * Range requests on repository files, checked as the client sees them
+ */
+@QuarkusTest
+class MavenRepositoryApiRangeTest {
+
+    @InjectMock
+    CentralSyncService centralSyncService;
+
+    @InjectMock
+    MavenRepositoryService mavenRepositoryService;
+
+    @InjectMock
+    PackageCreator packageCreator;
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("mvnpm-range-test");
+        Path jar = Files.writeString(dir.resolve("lit-3.1.2.jar"), CONTENT);
+        Files.setLastModifiedTime(jar, FileTime.from(MODIFIED));
+        Files.writeString(Path.of(jar + Constants.DOT_SHA1), SHA1, StandardCharsets.US_ASCII);
+        CentralSyncItem item = new CentralSyncItem();
+        item.stage = Stage.INIT;
+        Mockito.when(centralSyncService.checkReleaseInDbAndCentral(Mockito.eq("org.mvnpm"), Mockito.eq("lit"),
+                Mockito.eq("3.1.2"), Mockito.anyBoolean()))
+                .thenReturn(item);
+        Mockito.when(mavenRepositoryService.getPath(Mockito.any(Name.class), Mockito.eq("3.1.2"), Mockito.eq(FileType.jar)))
+                .thenReturn(jar);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (var files = Files.walk(dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void noRange_isServedWhole() {
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .when().get(JAR_URL)
+                .then()
+                .statusCode(200)
+                .header("Accept-Ranges", "bytes")
+                .header("Content-Range", Matchers.nullValue())
+                .body(Matchers.equalTo(CONTENT));
+    }
+
+    @Test
+    void range_isPartialContent() {
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .header("Range", "bytes=2-5")
+                .when().get(JAR_URL)
+                .then()
+                .statusCode(206)
+                .header("Accept-Ranges", "bytes")
+                .header("Content-Range", "bytes 2-5/20")
+                .header("Content-Length", "4")
+                .body(Matchers.equalTo("2345"));
+    }
+
+    @Test
+    void suffixRange_isTheEndOfTheFile() {
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .header("Range", "bytes=-3")
+                .when().get(JAR_URL)
+                .then()
+                .statusCode(206)
+                .header("Content-Range", "bytes 17-19/20")
+                .body(Matchers.equalTo("hij"));
+    }
+
+    @Test
+    void unsatisfiableRange_isRejected() {
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .header("Range", "bytes=50-60")
+                .when().get(JAR_URL)
+                .then()
+                .statusCode(416)
+                .header("Content-Range", "bytes */20");
+    }
+
+    @Test
+    void severalRanges_areMultipart() {
+        Response response = RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .header("Range", "bytes=0-1,4-5")
+                .when().get(JAR_URL)
+                .then()
+                .statusCode(206)
+                .extract().response();
+
+        String contentType = response.header("Content-Type");
+        assertTrue(contentType.startsWith("multipart/byteranges; boundary="), contentType);
+        String boundary = contentType.substring(contentType.indexOf("boundary=") + "boundary=".length());
+        assertEquals("--" + boundary + "\r\n"
+                + "Content-Type: application/octet-stream\r\n"
+                + "Content-Range: bytes 0-1/20\r\n"
+                + "\r\n"
+                + "01\r\n"
+                + "--" + boundary + "\r\n"
+                + "Content-Type: application/octet-stream\r\n"
+                + "Content-Range: bytes 4-5/20\r\n"
+                + "\r\n"
+                + "45\r\n"
+                + "--" + boundary + "--\r\n",
+                new String(response.asByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void ifRange_matchingEtag_isPartialContent() {
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .header("Range", "bytes=2-5")
+                .header("If-Range", "\"" + SHA1 + "\"")
+                .when().get(JAR_URL)
+                .then()
+                .statusCode(206)
+                .body(Matchers.equalTo("2345"));
+    }
+
+    @Test
+    void ifRange_matchingDate_isPartialContent() {
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .header("Range", "bytes=2-5")
+                .header("If-Range", httpDate(MODIFIED))
+                .when().get(JAR_URL)
+                .then()
+                .statusCode(206)
+                .body(Matchers.equalTo("2345"));
+    }
+
+    @Test
+    void ifRange_otherEtag_isServedWhole() {
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .header("Range", "bytes=2-5")
+                .header("If-Range", "\"0000000000000000000000000000000000000000\"")
+                .when().get(JAR_URL)
+                .then()
+                .statusCode(200)
+                .header("Content-Range", Matchers.nullValue())
+                .body(Matchers.equalTo(CONTENT));
+    }
+
+    @Test
+    void ifRange_otherDate_isServedWhole() {
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .header("Range", "bytes=2-5")
+                .header("If-Range", httpDate(MODIFIED.minusSeconds(3600)))
+                .when().get(JAR_URL)
+                .then()
+                .statusCode(200)
+                .body(Matchers.equalTo(CONTENT));
+    }
+
+    private static String httpDate(Instant instant) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atZone(ZoneOffset.UTC));
+    }
+
+    private static final String JAR_URL = "/maven2/org/mvnpm/lit/3.1.2/lit-3.1.2.jar";
+    private static final String CONTENT = "0123456789abcdefghij";
+    private static final String SHA1 = "1f0d3c6e2b3a4d5e6f708192a3b4c5d6e7f80912";
+    private static final Instant MODIFIED = Instant.parse("2024-03-01T10:15:30Z");
+}
@@ -0,0 +1,101 @@
+package io.mvnpm.maven;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.mvnpm.creator.FileType;
+import io.mvnpm.creator.PackageCreator;
+import io.mvnpm.mavencentral.sync.CentralSyncItem;
+import io.mvnpm.mavencentral.sync.CentralSyncService;
+import io.mvnpm.mavencentral.sync.Stage;
+import io.mvnpm.npm.model.Name;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.RestAssured;
+
+/**
+ * The files are served from their path (sendfile), check what reaches the client
+ */
+@QuarkusTest
+class MavenRepositoryApiStreamTest {
+
+    @InjectMock
+    CentralSyncService centralSyncService;
+
+    @InjectMock
+    MavenRepositoryService mavenRepositoryService;
+
+    @InjectMock
+    PackageCreator packageCreator;
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("mvnpm-stream-test");
+        CentralSyncItem item = new CentralSyncItem();
+        item.stage = Stage.INIT;
+        Mockito.when(centralSyncService.checkReleaseInDbAndCentral(Mockito.eq("org.mvnpm"), Mockito.eq("lit"),
+                Mockito.eq("3.1.2"), Mockito.anyBoolean()))
+                .thenReturn(item);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (var files = Files.walk(dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void jar_hasContentLengthAndTheFileBytes() throws IOException {
+        byte[] content = new byte[300_000];
+        new Random(42).nextBytes(content);
+        Path jar = Files.write(dir.resolve("lit-3.1.2.jar"), content);
+        Mockito.when(mavenRepositoryService.getPath(Mockito.any(Name.class), Mockito.eq("3.1.2"), Mockito.eq(FileType.jar)))
+                .thenReturn(jar);
+
+        byte[] body = RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .when().get("/maven2/org/mvnpm/lit/3.1.2/lit-3.1.2.jar")
+                .then()
+                .statusCode(200)
+                .header("Content-Length", String.valueOf(content.length))
+                .extract().asByteArray();
+
+        assertArrayEquals(content, body);
+    }
+
+    @Test
+    void emptyFile_hasZeroContentLength() throws IOException {
+        Path pom = Files.write(dir.resolve("lit-3.1.2.pom"), new byte[0]);
+        Mockito.when(mavenRepositoryService.getPath(Mockito.any(Name.class), Mockito.eq("3.1.2"), Mockito.eq(FileType.pom)))
+                .thenReturn(pom);
+
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .when().get("/maven2/org/mvnpm/lit/3.1.2/lit-3.1.2.pom")
+                .then()
+                .statusCode(200)
+                .header("Content-Length", "0");
+    }
+
+    @Test
+    void missingFile_isGone() {
+        Path missing = dir.resolve("lit-3.1.2.jar");
+        Mockito.when(mavenRepositoryService.getPath(Mockito.any(Name.class), Mockito.eq("3.1.2"), Mockito.eq(FileType.jar)))
+                .thenReturn(missing);
+
+        RestAssured.given().header("User-Agent", "m2e/unit-test")
+                .when().get("/maven2/org/mvnpm/lit/3.1.2/lit-3.1.2.jar")
+                .then()
+                .statusCode(410);
+    }
+}
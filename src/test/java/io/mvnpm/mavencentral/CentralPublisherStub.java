@@ -0,0 +1,48 @@
+package io.mvnpm.mavencentral;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import org.jboss.resteasy.reactive.RestForm;
+import org.jboss.resteasy.reactive.multipart.FileUpload;
+
+/**
+ * Local stand-in for the Central publisher upload, it keeps what it received (on disk) to check against
+ */
+@Path("/test-stub/central/api/v1/publisher")
+public class CentralPublisherStub {
+
+    static volatile String lastName;
+    static volatile long lastSize;
+    static volatile String lastSha256;
+
+    @POST
+    @Path("/upload")
+    @Consumes(MediaType.MULTIPART_FORM_DATA)
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response upload(@QueryParam("name") String name, @RestForm("bundle") FileUpload bundle)
+            throws IOException, NoSuchAlgorithmException {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        try (InputStream in = new DigestInputStream(Files.newInputStream(bundle.uploadedFile()), sha256)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        lastName = name;
+        lastSize = bundle.size();
+        lastSha256 = HexFormat.of().formatHex(sha256.digest());
+        return Response.status(201).entity("release-" + name).build();
+    }
+}
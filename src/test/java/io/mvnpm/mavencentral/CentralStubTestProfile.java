@@ -0,0 +1,16 @@
+package io.mvnpm.mavencentral;
+
+import java.util.Map;
+
+import io.quarkus.test.junit.QuarkusTestProfile;
+
+public class CentralStubTestProfile implements QuarkusTestProfile {
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+        return Map.of(
+                "mvnpm.mavencentral.authorization", "test-token",
+                // Bigger than the bundles the stub gets
+                "quarkus.http.limits.max-body-size", "256M");
+    }
+}
@@ -0,0 +1,62 @@
+package io.mvnpm.mavencentral;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Random;
+
+import jakarta.inject.Inject;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.mvnpm.mavencentral.exceptions.UploadFailedException;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+
+@QuarkusTest
+@TestProfile(CentralStubTestProfile.class)
+class MavenCentralFacadeTest {
+
+    @Inject
+    MavenCentralFacade mavenCentralFacade;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void uploadStreamsTheBundle() throws IOException, NoSuchAlgorithmException, UploadFailedException {
+        Path bundle = tempDir.resolve("lit-3.1.3-bundle.jar");
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        byte[] chunk = new byte[1024 * 1024];
+        Random random = new Random(21);
+        try (OutputStream out = Files.newOutputStream(bundle)) {
+            for (int i = 0; i < BUNDLE_MB; i++) {
+                random.nextBytes(chunk);
+                sha256.update(chunk);
+                out.write(chunk);
+            }
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        String releaseId = mavenCentralFacade.upload(bundle);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        assertEquals("release-lit-3.1.3-bundle.jar", releaseId);
+        assertEquals(Files.size(bundle), CentralPublisherStub.lastSize);
+        assertEquals(HexFormat.of().formatHex(sha256.digest()), CentralPublisherStub.lastSha256);
+        // Reading the bundle into memory would allocate at least its size
+        assertTrue(allocated < Files.size(bundle) / 4, "Allocated " + allocated + " bytes to upload the bundle");
+    }
+
+    private static final int BUNDLE_MB = 64;
+}
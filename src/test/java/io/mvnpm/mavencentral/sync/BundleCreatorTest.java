@@ -74,6 +74,8 @@ public class BundleCreatorTest {
         assertTrue(entries.contains(basePath + baseFile + Constants.DOT_JAR + Constants.DOT_ASC), "Missing jar.asc");
         assertTrue(entries.contains(basePath + baseFile + Constants.DOT_JAR + Constants.DOT_SHA1), "Missing jar.sha1");
         assertTrue(entries.contains(basePath + baseFile + Constants.DOT_JAR + Constants.DOT_MD5), "Missing jar.md5");
+        assertTrue(entries.contains(basePath + baseFile + Constants.DOT_JAR + Constants.DOT_SHA256), "Missing jar.sha256");
+        assertTrue(entries.contains(basePath + baseFile + Constants.DOT_JAR + Constants.DOT_SHA512), "Missing jar.sha512");
 
         assertTrue(entries.contains(basePath + baseFile + Constants.DASH_SOURCES_DOT_JAR), "Missing sources jar");
         assertTrue(entries.contains(basePath + baseFile + Constants.DASH_SOURCES_DOT_JAR + Constants.DOT_ASC),
@@ -0,0 +1,169 @@
+package io.mvnpm.mavencentral.sync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class CentralReleaseStatusCacheTest {
+
+    @Inject
+    CentralReleaseStatusCache centralReleaseStatusCache;
+
+    @Inject
+    CentralSyncItemService centralSyncItemService;
+
+    @BeforeEach
+    @AfterEach
+    @Transactional
+    void cleanup() {
+        CentralSyncItem.deleteAll();
+        UploadSlot.deleteAll();
+    }
+
+    @Test
+    void noneItem_isAMissWhenStartingSync() {
+        CentralSyncItem item = centralSyncItemService.findOrCreate("org.mvnpm", "cache-none", "1.0.0", Stage.NONE);
+        centralReleaseStatusCache.put(item);
+        Gav gav = new Gav("org.mvnpm", "cache-none", "1.0.0");
+
+        assertEquals(Stage.NONE, centralReleaseStatusCache.get(gav, false).stage);
+        assertNull(centralReleaseStatusCache.get(gav, true), "Starting a sync needs the DB");
+    }
+
+    @Test
+    void stageChange_followsTheItem() throws InterruptedException {
+        CentralSyncItem item = centralSyncItemService.findOrCreate("org.mvnpm", "cache-stage", "1.0.0", Stage.PACKAGING);
+        centralReleaseStatusCache.put(item);
+        Gav gav = new Gav("org.mvnpm", "cache-stage", "1.0.0");
+
+        item = centralSyncItemService.changeStage(item, Stage.INIT);
+        awaitStage(gav, null);
+
+        centralSyncItemService.changeStage(item, Stage.RELEASED);
+        awaitStage(gav, Stage.RELEASED);
+    }
+
+    @Test
+    void delete_invalidates() {
+        CentralSyncItem item = centralSyncItemService.findOrCreate("org.mvnpm", "cache-delete", "1.0.0", Stage.RELEASED);
+        centralReleaseStatusCache.put(item);
+        Gav gav = new Gav("org.mvnpm", "cache-delete", "1.0.0");
+
+        centralSyncItemService.delete(item);
+
+        assertNull(centralReleaseStatusCache.get(gav, false));
+    }
+
+    @Test
+    void get_returnsACopy() {
+        CentralSyncItem item = centralSyncItemService.findOrCreate("org.mvnpm", "cache-copy", "1.0.0", Stage.RELEASED);
+        centralReleaseStatusCache.put(item);
+        Gav gav = new Gav("org.mvnpm", "cache-copy", "1.0.0");
+
+        CentralSyncItem cached = centralReleaseStatusCache.get(gav, false);
+        cached.stage = Stage.ERROR;
+
+        assertNotSame(item, cached);
+        assertNotSame(cached, centralReleaseStatusCache.get(gav, false));
+        assertEquals(Stage.RELEASED, centralReleaseStatusCache.get(gav, false).stage);
+    }
+
+    @Test
+    void deleteByGav_deletesACachedItem() {
+        centralSyncItemService.findOrCreate("org.mvnpm", "cache-remove", "1.0.0", Stage.RELEASED);
+        Gav gav = new Gav("org.mvnpm", "cache-remove", "1.0.0");
+        centralReleaseStatusCache.put(centralSyncItemService.find("org.mvnpm", "cache-remove", "1.0.0"));
+        CentralSyncItem cached = centralReleaseStatusCache.get(gav, false);
+
+        centralSyncItemService.delete(cached);
+
+        assertNull(centralReleaseStatusCache.get(gav, false));
+        assertNull(centralSyncItemService.find("org.mvnpm", "cache-remove", "1.0.0"));
+    }
+
+    @Test
+    void rolledBackStageChange_isNotApplied() {
+        CentralSyncItem item = centralSyncItemService.findOrCreate("org.mvnpm", "cache-rollback", "1.0.0",
+                Stage.PACKAGING);
+        centralReleaseStatusCache.put(item);
+        Gav gav = new Gav("org.mvnpm", "cache-rollback", "1.0.0");
+
+        assertThrows(IllegalStateException.class, () -> changeStageAndRollBack(item, Stage.RELEASED));
+
+        assertEquals(Stage.PACKAGING, centralReleaseStatusCache.get(gav, false).stage);
+        assertEquals(Stage.PACKAGING, centralSyncItemService.find("org.mvnpm", "cache-rollback", "1.0.0").stage);
+    }
+
+    @Test
+    void claimForUpload_dropsTheCachedStage() {
+        CentralSyncItem item = centralSyncItemService.findOrCreate("org.mvnpm", "cache-claim", "1.0.0", Stage.INIT);
+        centralReleaseStatusCache.put(item);
+        Gav gav = new Gav("org.mvnpm", "cache-claim", "1.0.0");
+        centralSyncItemService.createUploadSlots(1);
+
+        CentralSyncItemService.UploadClaim claim = centralSyncItemService.claimUploadSlot(1, Duration.ofMinutes(30), 1);
+
+        assertEquals(gav, new Gav(claim.item().groupId, claim.item().artifactId, claim.item().version));
+        assertNull(centralReleaseStatusCache.get(gav, false), "Claimed, so not INIT anymore");
+    }
+
+    @Test
+    void lookupInterleavedWithAStageChange_doesNotCacheTheOldStage() {
+        centralSyncItemService.findOrCreate("org.mvnpm", "cache-interleave", "1.0.0", Stage.PACKAGING);
+        Gav gav = new Gav("org.mvnpm", "cache-interleave", "1.0.0");
+
+        // The lookup loads the item, then the stage change commits before the lookup caches it
+        long generation = centralReleaseStatusCache.generation(gav);
+        CentralSyncItem loaded = centralSyncItemService.find("org.mvnpm", "cache-interleave", "1.0.0");
+        centralSyncItemService.changeStage(centralSyncItemService.find("org.mvnpm", "cache-interleave", "1.0.0"),
+                Stage.INIT);
+        centralReleaseStatusCache.put(loaded, generation);
+
+        assertNull(centralReleaseStatusCache.get(gav, false), "The old stage must not be cached");
+    }
+
+    @Test
+    void lookupWithoutAChange_isCached() {
+        centralSyncItemService.findOrCreate("org.mvnpm", "cache-lookup", "1.0.0", Stage.PACKAGING);
+        Gav gav = new Gav("org.mvnpm", "cache-lookup", "1.0.0");
+
+        long generation = centralReleaseStatusCache.generation(gav);
+        CentralSyncItem loaded = centralSyncItemService.find("org.mvnpm", "cache-lookup", "1.0.0");
+        centralReleaseStatusCache.put(loaded, generation);
+
+        assertEquals(Stage.PACKAGING, centralReleaseStatusCache.get(gav, false).stage);
+    }
+
+    @Transactional
+    void changeStageAndRollBack(CentralSyncItem item, Stage stage) {
+        centralSyncItemService.changeStage(item, stage);
+        throw new IllegalStateException("Rolled back");
+    }
+
+    // Stage change events are delivered asynchronously
+    private void awaitStage(Gav gav, Stage expected) throws InterruptedException {
+        Stage actual = null;
+        for (int i = 0; i < 50; i++) {
+            CentralSyncItem cached = centralReleaseStatusCache.get(gav, false);
+            actual = cached == null ? null : cached.stage;
+            if (actual == expected) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        assertEquals(expected, actual);
+    }
+}
@@ -1,6 +1,7 @@
 package io.mvnpm.mavencentral.sync;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -23,6 +24,9 @@ import io.mvnpm.creator.PackageListener;
 import io.mvnpm.maven.MavenRepositoryService;
 import io.mvnpm.maven.exceptions.PackageAlreadySyncedException;
 import io.mvnpm.mavencentral.MavenCentralFacade;
+import io.mvnpm.mavencentral.ReleaseStatus;
+import io.mvnpm.mavencentral.sync.CentralSyncItemService.SlotRelease;
+import io.mvnpm.mavencentral.sync.CentralSyncItemService.UploadClaim;
 import io.mvnpm.npm.NpmRegistryFacade;
 import io.mvnpm.npm.model.DistTags;
 import io.mvnpm.npm.model.Name;
@@ -56,6 +60,7 @@ class ContinuousSyncServiceTest {
     void cleanup() {
         SyncedPackage.deleteAll();
         CentralSyncItem.deleteAll();
+        UploadSlot.deleteAll();
     }
 
     @Test
@@ -96,6 +101,26 @@ class ContinuousSyncServiceTest {
         assertEquals(Duration.ofDays(30), ContinuousSyncService.nextCheckInterval(1825));
     }
 
+    @Test
+    void retryDelay_doublesUpToHalfAnHour() {
+        Duration delay = Duration.ofSeconds(30);
+        assertEquals(Duration.ofSeconds(30), ContinuousSyncService.retryDelay(delay, 1));
+        assertEquals(Duration.ofSeconds(60), ContinuousSyncService.retryDelay(delay, 2));
+        assertEquals(Duration.ofMinutes(8), ContinuousSyncService.retryDelay(delay, 5));
+        assertEquals(Duration.ofMinutes(30), ContinuousSyncService.retryDelay(delay, 9));
+        assertEquals(Duration.ofMinutes(30), ContinuousSyncService.retryDelay(delay, 100));
+    }
+
+    @Test
+    void statusCheckDelay_doublesUpToTheMax() {
+        Duration delay = Duration.ofSeconds(15);
+        Duration max = Duration.ofMinutes(5);
+        assertEquals(Duration.ofSeconds(15), CentralSyncStateMachine.statusCheckDelay(delay, max, 0));
+        assertEquals(Duration.ofSeconds(60), CentralSyncStateMachine.statusCheckDelay(delay, max, 2));
+        assertEquals(Duration.ofMinutes(5), CentralSyncStateMachine.statusCheckDelay(delay, max, 5));
+        assertEquals(Duration.ofMinutes(5), CentralSyncStateMachine.statusCheckDelay(delay, max, 40));
+    }
+
     @Test
     void checkAllUpdatesNextCheck() {
         // Insert a due package
@@ -146,44 +171,185 @@ class ContinuousSyncServiceTest {
     }
 
     @Test
-    void claimNextForUpload_claimsOldestInitItem() {
+    void claimUploadSlot_claimsOldestInitItem() {
+        centralSyncItemService.createUploadSlots(1);
         createInitItem("org.mvnpm", "first", "1.0.0");
         createInitItem("org.mvnpm", "second", "1.0.0");
 
-        CentralSyncItem claimed = centralSyncItemService.claimNextForUpload();
+        UploadClaim claim = centralSyncItemService.claimUploadSlot(1, Duration.ofMinutes(30), 1);
 
-        assertNotNull(claimed);
-        assertEquals("first", claimed.artifactId);
-        assertEquals(Stage.UPLOADING, claimed.stage);
-        assertEquals(1, claimed.uploadAttempts);
+        assertNotNull(claim);
+        assertEquals(1, claim.items().size());
+        assertEquals("first", claim.item().artifactId);
+        assertEquals(Stage.UPLOADING, claim.item().stage);
+        assertEquals(1, claim.item().uploadAttempts);
     }
 
     @Test
-    void claimNextForUpload_returnsNullWhenEmpty() {
-        CentralSyncItem claimed = centralSyncItemService.claimNextForUpload();
-        assertNull(claimed);
-    }
-
-    @Test
-    void claimNextForUpload_skipsNonInitItems() {
+    void claimUploadSlot_skipsNonInitItems() {
+        centralSyncItemService.createUploadSlots(1);
         createItem("org.mvnpm", "uploading-pkg", "1.0.0");
         changeStage("org.mvnpm", "uploading-pkg", "1.0.0", Stage.UPLOADING);
 
-        CentralSyncItem claimed = centralSyncItemService.claimNextForUpload();
-        assertNull(claimed);
+        assertNull(centralSyncItemService.claimUploadSlot(1, Duration.ofMinutes(30), 1));
     }
 
     @Test
-    void claimNextForUpload_sequentialClaimsGetDifferentItems() {
+    void claimUploadSlot_sequentialClaimsGetDifferentItems() {
+        centralSyncItemService.createUploadSlots(2);
         createInitItem("org.mvnpm", "a", "1.0.0");
         createInitItem("org.mvnpm", "b", "1.0.0");
 
-        CentralSyncItem first = centralSyncItemService.claimNextForUpload();
-        CentralSyncItem second = centralSyncItemService.claimNextForUpload();
+        UploadClaim first = centralSyncItemService.claimUploadSlot(2, Duration.ofMinutes(30), 1);
+        UploadClaim second = centralSyncItemService.claimUploadSlot(2, Duration.ofMinutes(30), 1);
 
         assertNotNull(first);
         assertNotNull(second);
-        assertNotEquals(first.artifactId, second.artifactId);
+        assertNotEquals(first.item().artifactId, second.item().artifactId);
+    }
+
+    @Test
+    void claimUploadSlot_noMoreUploadsThanSlots() {
+        centralSyncItemService.createUploadSlots(2);
+        createInitItem("org.mvnpm", "slot-a", "1.0.0");
+        createInitItem("org.mvnpm", "slot-b", "1.0.0");
+        createInitItem("org.mvnpm", "slot-c", "1.0.0");
+
+        UploadClaim first = centralSyncItemService.claimUploadSlot(2, Duration.ofMinutes(30), 1);
+        UploadClaim second = centralSyncItemService.claimUploadSlot(2, Duration.ofMinutes(30), 1);
+        UploadClaim third = centralSyncItemService.claimUploadSlot(2, Duration.ofMinutes(30), 1);
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNotEquals(first.slot(), second.slot());
+        assertEquals(Stage.UPLOADING, first.item().stage);
+        assertNull(third, "All slots are taken");
+        assertEquals(Stage.INIT, reloadItem("org.mvnpm", "slot-c", "1.0.0").stage);
+
+        SlotRelease release = centralSyncItemService.releaseUploadSlot(first.item());
+        assertEquals(first.slot(), release.slot());
+        UploadClaim next = centralSyncItemService.claimUploadSlot(2, Duration.ofMinutes(30), 1);
+        assertNotNull(next, "The freed slot is claimed");
+        assertEquals("slot-c", next.item().artifactId);
+        assertEquals(first.slot(), next.slot());
+    }
+
+    @Test
+    void claimUploadSlot_expiredLeaseIsFree() {
+        centralSyncItemService.createUploadSlots(1);
+        createInitItem("org.mvnpm", "lease-a", "1.0.0");
+        createInitItem("org.mvnpm", "lease-b", "1.0.0");
+
+        // As if the pod holding the slot went away
+        UploadClaim gone = centralSyncItemService.claimUploadSlot(1, Duration.ofMinutes(-1), 1);
+        UploadClaim next = centralSyncItemService.claimUploadSlot(1, Duration.ofMinutes(30), 1);
+
+        assertNotNull(gone);
+        assertNotNull(next);
+        assertEquals("lease-b", next.item().artifactId);
+        assertNull(centralSyncItemService.releaseUploadSlot(gone.item()), "The slot is not held for it anymore");
+    }
+
+    @Test
+    void renewUploadSlot_keepsTheSlotPastItsLease() {
+        centralSyncItemService.createUploadSlots(1);
+        createInitItem("org.mvnpm", "renew-a", "1.0.0");
+        createInitItem("org.mvnpm", "renew-b", "1.0.0");
+
+        UploadClaim slow = centralSyncItemService.claimUploadSlot(1, Duration.ofMinutes(-1), 1);
+        assertTrue(centralSyncItemService.renewUploadSlot(slow.item(), Duration.ofMinutes(30)));
+
+        assertNull(centralSyncItemService.claimUploadSlot(1, Duration.ofMinutes(30), 1), "The slot is still held");
+        assertNotNull(centralSyncItemService.releaseUploadSlot(slow.item()));
+        assertFalse(centralSyncItemService.renewUploadSlot(slow.item(), Duration.ofMinutes(30)),
+                "A released slot is not renewed");
+    }
+
+    @Test
+    void claimUploadSlot_nothingToUploadKeepsTheSlotFree() {
+        centralSyncItemService.createUploadSlots(1);
+
+        assertNull(centralSyncItemService.claimUploadSlot(1, Duration.ofMinutes(30), 1));
+
+        createInitItem("org.mvnpm", "later", "1.0.0");
+        assertNotNull(centralSyncItemService.claimUploadSlot(1, Duration.ofMinutes(30), 1));
+    }
+
+    @Test
+    void claimUploadSlot_batchesTheOldestItemsInOneSlot() {
+        centralSyncItemService.createUploadSlots(1);
+        createInitItem("org.mvnpm", "batch-a", "1.0.0");
+        createInitItem("org.mvnpm", "batch-b", "1.0.0");
+        createInitItem("org.mvnpm", "batch-c", "1.0.0");
+
+        UploadClaim claim = centralSyncItemService.claimUploadSlot(1, Duration.ofMinutes(30), 2);
+
+        assertNotNull(claim);
+        assertEquals(2, claim.items().size());
+        assertEquals("batch-a", claim.item().artifactId);
+        assertEquals(Stage.UPLOADING, reloadItem("org.mvnpm", "batch-b", "1.0.0").stage);
+        assertEquals(Stage.INIT, reloadItem("org.mvnpm", "batch-c", "1.0.0").stage);
+        assertNotNull(centralSyncItemService.releaseUploadSlot(claim.item()), "The slot is held by the first item");
+    }
+
+    @Test
+    void unclaimUpload_isNotAnAttempt() {
+        centralSyncItemService.createUploadSlots(1);
+        createInitItem("org.mvnpm", "unclaim", "1.0.0");
+        UploadClaim claim = centralSyncItemService.claimUploadSlot(1, Duration.ofMinutes(30), 1);
+        assertEquals(1, reloadItem("org.mvnpm", "unclaim", "1.0.0").uploadAttempts);
+
+        centralSyncItemService.unclaimUpload(claim.item());
+
+        CentralSyncItem unclaimed = reloadItem("org.mvnpm", "unclaim", "1.0.0");
+        assertEquals(Stage.INIT, unclaimed.stage);
+        assertEquals(0, unclaimed.uploadAttempts);
+    }
+
+    @Test
+    void processCentralStatuses_oneStatusCheckPerDeployment() throws Exception {
+        createInitItem("org.mvnpm", "deployed-a", "1.0.0");
+        createInitItem("org.mvnpm", "deployed-b", "1.0.0");
+        changeStage("org.mvnpm", "deployed-a", "1.0.0", Stage.UPLOADED);
+        changeStage("org.mvnpm", "deployed-b", "1.0.0", Stage.UPLOADED);
+        setReleaseId("org.mvnpm", "deployed-a", "1.0.0", "shared-deployment");
+        setReleaseId("org.mvnpm", "deployed-b", "1.0.0", "shared-deployment");
+        Mockito.when(mavenCentralFacade.status(Mockito.any(), Mockito.eq("shared-deployment")))
+                .thenReturn(ReleaseStatus.PUBLISHED);
+
+        continuousSyncService.processCentralStatuses();
+
+        Mockito.verify(mavenCentralFacade, Mockito.times(1)).status(Mockito.any(), Mockito.eq("shared-deployment"));
+        assertEquals(Stage.RELEASED, reloadItem("org.mvnpm", "deployed-a", "1.0.0").stage);
+        assertEquals(Stage.RELEASED, reloadItem("org.mvnpm", "deployed-b", "1.0.0").stage);
+    }
+
+    @Test
+    void claimUploadSlot_waitsForTheRetryDelay() {
+        centralSyncItemService.createUploadSlots(1);
+        createInitItem("org.mvnpm", "retry-later", "1.0.0");
+        setRetryAfter("org.mvnpm", "retry-later", "1.0.0", LocalDateTime.now().plusMinutes(5));
+
+        assertNull(centralSyncItemService.claimUploadSlot(1, Duration.ofMinutes(30), 1));
+
+        setRetryAfter("org.mvnpm", "retry-later", "1.0.0", LocalDateTime.now().minusSeconds(1));
+        UploadClaim claim = centralSyncItemService.claimUploadSlot(1, Duration.ofMinutes(30), 1);
+        assertNotNull(claim);
+        assertNull(claim.item().retryAfter);
+    }
+
+    @Transactional
+    void setRetryAfter(String groupId, String artifactId, String version, LocalDateTime retryAfter) {
+        CentralSyncItem item = CentralSyncItem.findById(new Gav(groupId, artifactId, version));
+        item.retryAfter = retryAfter;
+        item.persist();
+    }
+
+    @Transactional
+    void setReleaseId(String groupId, String artifactId, String version, String releaseId) {
+        CentralSyncItem item = CentralSyncItem.findById(new Gav(groupId, artifactId, version));
+        item.stagingRepoId = releaseId;
+        item.persist();
     }
 
     @Transactional
@@ -320,7 +486,7 @@ class ContinuousSyncServiceTest {
         changeStage("org.mvnpm", "ensure-files-pkg", "1.0.0", Stage.UPLOADING);
         item = reloadItem("org.mvnpm", "ensure-files-pkg", "1.0.0");
 
-        // Call processNextAction directly (normally triggered by stage-change event)
+        // Call processNextAction directly (normally triggered by the claim of an upload slot)
         continuousSyncService.processNextAction(item);
 
         // Verify that getPath was called to ensure files exist
@@ -376,6 +542,22 @@ class ContinuousSyncServiceTest {
         assertEquals(Stage.INIT, updated.stage, "Item under attempt limit should reset to INIT");
     }
 
+    @Test
+    void resetUpload_keepsTheItemsOfAHeldSlot() {
+        centralSyncItemService.createUploadSlots(1);
+        createInitItem("org.mvnpm", "long-a", "1.0.0");
+        createInitItem("org.mvnpm", "long-b", "1.0.0");
+        UploadClaim claim = centralSyncItemService.claimUploadSlot(1, Duration.ofMinutes(30), 2);
+        // An upload running for an hour, its lease renewed
+        setClaimedAt(claim, LocalDateTime.now().minusHours(1));
+
+        continuousSyncService.periodicResetUpload();
+
+        assertEquals(Stage.UPLOADING, reloadItem("org.mvnpm", "long-a", "1.0.0").stage);
+        assertEquals(Stage.UPLOADING, reloadItem("org.mvnpm", "long-b", "1.0.0").stage);
+        assertNotNull(centralSyncItemService.releaseUploadSlot(claim.item()), "The slot is still held");
+    }
+
     @Test
     void processUpload_compositeWithoutTgz_passesNullTgz() {
         // Create an UPLOADING item
@@ -402,6 +584,16 @@ class ContinuousSyncServiceTest {
         }
     }
 
+    @Transactional
+    void setClaimedAt(UploadClaim claim, LocalDateTime time) {
+        UploadSlot slot = UploadSlot.findById(claim.slot());
+        slot.claimedAt = time;
+        for (CentralSyncItem claimed : claim.items()) {
+            CentralSyncItem item = CentralSyncItem.findById(new Gav(claimed.groupId, claimed.artifactId, claimed.version));
+            item.stageChangeTime = time;
+        }
+    }
+
     @Transactional
     void setAttemptCounters(String groupId, String artifactId, String version,
             int uploadAttempts, int promotionAttempts) {
@@ -0,0 +1,81 @@
+package io.mvnpm.mavencentral.sync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+class NpmChangesFollowerTest {
+
+    @Inject
+    NpmChangesFollower npmChangesFollower;
+
+    @InjectMock
+    ContinuousSyncService continuousSyncService;
+
+    @BeforeEach
+    @Transactional
+    void cleanup() {
+        NpmChangesCheckpoint.deleteAll();
+        SyncedPackage.deleteAll();
+        SyncedPackage.createIfAbsent("org.mvnpm", "lit");
+        SyncedPackage.createIfAbsent("org.mvnpm.at.hotwired", "stimulus");
+        SyncedPackage.createIfAbsent("org.mvnpm", "vue");
+    }
+
+    @Test
+    void followChecksOnlyChangedSyncedPackages() {
+        npmChangesFollower.follow();
+
+        Mockito.verify(continuousSyncService, Mockito.times(1)).checkChanged("org.mvnpm", "lit");
+        Mockito.verify(continuousSyncService, Mockito.times(1)).checkChanged("org.mvnpm.at.hotwired", "stimulus");
+        Mockito.verifyNoMoreInteractions(continuousSyncService);
+
+        NpmChangesCheckpoint checkpoint = findCheckpoint();
+        assertEquals("105", checkpoint.lastSeq);
+        assertNull(checkpoint.leaseUntil, "Lease is released after following");
+    }
+
+    @Test
+    void followResumesFromCheckpoint() {
+        npmChangesFollower.follow();
+        Mockito.clearInvocations(continuousSyncService);
+
+        npmChangesFollower.follow();
+
+        Mockito.verifyNoInteractions(continuousSyncService);
+        assertEquals("105", findCheckpoint().lastSeq);
+    }
+
+    @Test
+    void followSkipsWhenAnotherPodHoldsTheLease() {
+        holdLease();
+
+        npmChangesFollower.follow();
+
+        Mockito.verifyNoInteractions(continuousSyncService);
+        assertNull(findCheckpoint().lastSeq);
+    }
+
+    @Transactional
+    void holdLease() {
+        NpmChangesCheckpoint.createIfAbsent("registry");
+        NpmChangesCheckpoint.claim("registry", LocalDateTime.now().plusMinutes(5));
+    }
+
+    @Transactional
+    NpmChangesCheckpoint findCheckpoint() {
+        return NpmChangesCheckpoint.findById("registry");
+    }
+}
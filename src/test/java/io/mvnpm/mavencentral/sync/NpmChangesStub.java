@@ -0,0 +1,41 @@
+package io.mvnpm.mavencentral.sync;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * Local stand-in for the NPM Registry changes feed, starting at sequence 100
+ */
+@Path("/test-stub/npm-changes")
+@Produces(MediaType.APPLICATION_JSON)
+public class NpmChangesStub {
+
+    @GET
+    public String registryInfo() {
+        return """
+                {"db_name": "registry", "update_seq": 100}
+                """;
+    }
+
+    @GET
+    @Path("/_changes")
+    public String changes(@QueryParam("since") String since, @QueryParam("limit") int limit) {
+        if ("100".equals(since)) {
+            return """
+                    {"results": [
+                      {"seq": 101, "id": "lit", "changes": [{"rev": "12-a"}]},
+                      {"seq": 102, "id": "not-synced", "changes": [{"rev": "1-b"}]},
+                      {"seq": 103, "id": "@hotwired/stimulus", "changes": [{"rev": "7-c"}]},
+                      {"seq": 104, "id": "vue", "deleted": true, "changes": [{"rev": "9-d"}]},
+                      {"seq": 105, "id": "lit", "changes": [{"rev": "13-e"}]}
+                    ], "last_seq": 105}
+                    """;
+        }
+        return """
+                {"results": [], "last_seq": %s}
+                """.formatted(since);
+    }
+}
@@ -0,0 +1,49 @@
+package io.mvnpm.mavencentral.sync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class StageChangeListenerTest {
+
+    private static final Gav GAV = new Gav("org.mvnpm.at.lit", "reactive-element", "2.0.4");
+
+    @Test
+    void fromAnotherPod() {
+        String payload = StageChangeListener.payload("pod-a", Stage.INIT, GAV);
+
+        StageChangeListener.RemoteStageChange change = StageChangeListener.parse(payload, "pod-b");
+
+        assertNotNull(change);
+        assertEquals(GAV, change.gav());
+        assertEquals(Stage.INIT, change.stage());
+    }
+
+    @Test
+    void fromThisPod() {
+        String payload = StageChangeListener.payload("pod-a", Stage.RELEASED, GAV);
+
+        assertNull(StageChangeListener.parse(payload, "pod-a"), "Went over the event bus already");
+    }
+
+    @Test
+    void onlyWhatOtherPodsActOnIsNotified() {
+        assertTrue(StageChangeListener.isNotified(Stage.INIT), "Any pod can upload it");
+        assertTrue(StageChangeListener.isNotified(Stage.RELEASED), "Other pods may have cached it as unreleased");
+        assertFalse(StageChangeListener.isNotified(Stage.PACKAGING));
+        assertFalse(StageChangeListener.isNotified(Stage.UPLOADING));
+        assertFalse(StageChangeListener.isNotified(Stage.UPLOADED));
+        assertFalse(StageChangeListener.isNotified(Stage.ERROR));
+    }
+
+    @Test
+    void malformed() {
+        assertNull(StageChangeListener.parse("pod-a INIT org.mvnpm lit", "pod-b"));
+        assertNull(StageChangeListener.parse("pod-a UNKNOWN org.mvnpm lit 3.1.3", "pod-b"));
+        assertNull(StageChangeListener.parse(null, "pod-b"));
+    }
+}
@@ -0,0 +1,197 @@
+package io.mvnpm.npm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mvnpm.creator.PackageFileLocator;
+import io.mvnpm.npm.NpmResponseStore.StoredResponse;
+import io.mvnpm.npm.model.Package;
+import io.mvnpm.npm.model.ProjectInfo;
+import io.quarkus.runtime.configuration.MemorySize;
+
+class NpmResponseStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    NpmResponseStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = newStore(new MemorySize(BigInteger.valueOf(1024 * 1024)));
+    }
+
+    @Test
+    void projectRoundTrip() throws Exception {
+        Path file = store.projectFile("@hotwired/stimulus");
+        store.put(file, "W/\"abc\"", "Tue, 01 Oct 2024 10:00:00 GMT", json("""
+                {"name": "@hotwired/stimulus", "modified": "2024-10-01T10:00:00.000Z",
+                 "dist-tags": {"latest": "3.2.2"},
+                 "versions": {"3.2.1": {"dist": {"tarball": "t1"}}, "3.2.2": {"dist": {"tarball": "t2"}}}}
+                """));
+
+        StoredResponse stored = store.get(file).orElseThrow();
+        assertEquals("W/\"abc\"", stored.etag());
+        assertEquals("Tue, 01 Oct 2024 10:00:00 GMT", stored.lastModified());
+        assertTrue(store.isFresh(stored));
+
+        ProjectInfo info = store.read(stored, ProjectInfo.class).orElseThrow();
+        assertEquals("3.2.2", info.distTags().latest());
+        assertEquals(List.of("3.2.1", "3.2.2"), List.copyOf(info.versions()));
+        assertEquals("2024-10-01T10:00:00.000Z", info.lastModified());
+    }
+
+    @Test
+    void packageRoundTrip() throws Exception {
+        Path file = store.packageFile("lit", "^3.1.0");
+        store.put(file, null, null, json("""
+                {"name": "lit", "version": "3.1.3", "license": "BSD-3-Clause",
+                 "dependencies": {"lit-html": "^3.1.0"}}
+                """));
+
+        StoredResponse stored = store.get(file).orElseThrow();
+        assertNull(stored.etag());
+        Package pkg = store.read(stored, Package.class).orElseThrow();
+        assertEquals("lit", pkg.name().npmFullName);
+        assertEquals("3.1.3", pkg.version());
+        assertEquals("BSD-3-Clause", pkg.license().type());
+        assertTrue(store.get(store.packageFile("lit", "3.1.0")).isEmpty());
+    }
+
+    @Test
+    void revalidatedIsFreshAgain() throws Exception {
+        Path file = store.projectFile("lit");
+        store.put(file, "\"v1\"", null, json("{\"dist-tags\": {\"latest\": \"3.1.3\"}}"));
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+        StoredResponse stale = store.get(file).orElseThrow();
+        assertFalse(store.isFresh(stale));
+
+        store.revalidated(stale);
+        assertTrue(store.isFresh(store.get(file).orElseThrow()));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedOverMaxSize() throws Exception {
+        String big = "{\"readme\": \"" + "x".repeat(400) + "\"}";
+        Path first = store.projectFile("first");
+        Path second = store.projectFile("second");
+        Path third = store.projectFile("third");
+        NpmResponseStore small = newStore(new MemorySize(BigInteger.valueOf(1024)));
+        small.put(first, null, null, json(big));
+        small.put(second, null, null, json(big));
+        // Using first makes second the least recently used
+        small.get(first);
+        small.put(third, null, null, json(big));
+
+        assertTrue(Files.exists(first));
+        assertFalse(Files.exists(second));
+        assertTrue(Files.exists(third));
+    }
+
+    @Test
+    void putReturnsTheStoredResponse() throws Exception {
+        Path file = store.projectFile("lit");
+
+        StoredResponse stored = store.put(file, "\"v1\"", null, json("{\"dist-tags\": {\"latest\": \"3.1.3\"}}"))
+                .orElseThrow();
+
+        assertEquals("\"v1\"", stored.etag());
+        assertTrue(store.isFresh(stored));
+        assertEquals("3.1.3", store.read(stored, ProjectInfo.class).orElseThrow().distTags().latest());
+    }
+
+    @Test
+    void truncatedResponseKeepsThePreviousOne() throws Exception {
+        Path file = store.projectFile("lit");
+        store.put(file, "\"v1\"", null, json("{\"dist-tags\": {\"latest\": \"3.1.3\"}}"));
+
+        assertThrows(IOException.class, () -> store.put(file, "\"v2\"", null, json("{\"dist-tags\": {\"lat")));
+
+        assertEquals("\"v1\"", store.get(file).orElseThrow().etag());
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            assertEquals(List.of(file), files.toList(), "No temporary file left");
+        }
+    }
+
+    @Test
+    void removedAfterLookupIsAMiss() throws Exception {
+        Path file = store.projectFile("lit");
+        store.put(file, "\"v1\"", null, json("{\"dist-tags\": {\"latest\": \"3.1.3\"}}"));
+        StoredResponse stored = store.get(file).orElseThrow();
+
+        Files.delete(file);
+
+        assertTrue(store.read(stored, ProjectInfo.class).isEmpty());
+        assertTrue(store.get(file).isEmpty());
+    }
+
+    @Test
+    void largeResponseRoundTrip() throws Exception {
+        Path file = store.projectFile("large");
+        StringBuilder versions = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            versions.append(i == 0 ? "" : ", ").append("\"1.0.").append(i)
+                    .append("\": {\"dist\": {\"tarball\": \"https://registry.npmjs.org/large/-/large-1.0.")
+                    .append(i).append(".tgz\"}}");
+        }
+        store.put(file, null, null,
+                json("{\"dist-tags\": {\"latest\": \"1.0.4999\"}, \"versions\": {" + versions + "}}"));
+        assertTrue(Files.size(file) > 64 * 1024, "Memory mapped when read");
+
+        ProjectInfo info = store.read(store.get(file).orElseThrow(), ProjectInfo.class).orElseThrow();
+        assertEquals("1.0.4999", info.distTags().latest());
+        assertEquals(5000, info.versions().size());
+    }
+
+    @Test
+    void newestIsNotEvictedWhenOverMaxSize() throws Exception {
+        NpmResponseStore small = newStore(new MemorySize(BigInteger.valueOf(128)));
+        Path file = store.projectFile("big");
+
+        StoredResponse stored = small.put(file, null, null, json("{\"readme\": \"" + "x".repeat(400) + "\"}"))
+                .orElseThrow();
+
+        assertTrue(small.read(stored, ProjectInfo.class).isPresent());
+    }
+
+    private NpmResponseStore newStore(MemorySize maxSize) {
+        NpmResponseStore newStore = new NpmResponseStore();
+        newStore.packageFileLocator = Mockito.mock(PackageFileLocator.class);
+        Mockito.when(newStore.packageFileLocator.getCacheDir()).thenReturn(tempDir);
+        newStore.objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        newStore.meterRegistry = new SimpleMeterRegistry();
+        newStore.maxSize = maxSize;
+        newStore.maxAge = Duration.ofHours(1);
+        return newStore;
+    }
+
+    private static InputStream json(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
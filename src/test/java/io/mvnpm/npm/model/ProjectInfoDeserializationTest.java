@@ -0,0 +1,56 @@
+package io.mvnpm.npm.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ProjectInfoDeserializationTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void abbreviatedPackument() throws Exception {
+        String json = """
+                {
+                  "name": "lit",
+                  "modified": "2024-05-01T10:00:00.000Z",
+                  "dist-tags": {"latest": "3.1.3", "next": "3.2.0-pre.0", "canary": "0.0.0-c"},
+                  "versions": {
+                    "3.1.2": {"name": "lit", "version": "3.1.2", "dependencies": {"lit-html": "^3.1.0"},
+                              "dist": {"tarball": "https://registry.npmjs.org/lit/-/lit-3.1.2.tgz"}},
+                    "3.1.3": {"name": "lit", "version": "3.1.3", "engines": {"node": ">=18"}}
+                  }
+                }
+                """;
+        ProjectInfo info = mapper.readValue(json, ProjectInfo.class);
+        assertEquals("3.1.3", info.distTags().latest());
+        assertEquals("3.2.0-pre.0", info.distTags().next());
+        assertEquals(List.of("3.1.2", "3.1.3"), List.copyOf(info.versions()));
+        assertEquals("2024-05-01T10:00:00.000Z", info.lastModified());
+    }
+
+    @Test
+    void fullPackument() throws Exception {
+        String json = """
+                {
+                  "name": "lit",
+                  "description": "A library",
+                  "dist-tags": {"latest": "3.1.3"},
+                  "versions": {"3.1.3": {"name": "lit", "scripts": {"build": "tsc"}}},
+                  "time": {"created": "2019-01-01T00:00:00.000Z", "unpublished": {"time": "x"},
+                           "modified": "2024-05-01T10:00:00.000Z", "3.1.3": "2024-04-30T00:00:00.000Z"},
+                  "license": "BSD-3-Clause"
+                }
+                """;
+        ProjectInfo info = mapper.readValue(json, ProjectInfo.class);
+        assertEquals("3.1.3", info.distTags().latest());
+        assertNull(info.distTags().next());
+        assertEquals(List.of("3.1.3"), List.copyOf(info.versions()));
+        assertEquals("2024-05-01T10:00:00.000Z", info.lastModified());
+    }
+}